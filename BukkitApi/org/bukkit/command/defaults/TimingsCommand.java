@@ -1,10 +1,17 @@
 package org.bukkit.command.defaults;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.Bukkit;
@@ -16,16 +23,17 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredListener;
 import org.bukkit.plugin.TimedRegisteredListener;
 import org.bukkit.util.StringUtil;
+import org.json.simple.JSONValue;
 
 import com.google.common.collect.ImmutableList;
 
 public class TimingsCommand extends BukkitCommand {
-    private static final List<String> TIMINGS_SUBCOMMANDS = ImmutableList.of("merged", "reset", "separate");
+    private static final List<String> TIMINGS_SUBCOMMANDS = ImmutableList.of("json", "merged", "reset", "separate");
 
     public TimingsCommand(String name) {
         super(name);
         this.description = "Records timings for all plugin events";
-        this.usageMessage = "/timings <reset|merged|separate>";
+        this.usageMessage = "/timings <reset|merged|separate|json>";
         this.setPermission("bukkit.command.timings");
     }
 
@@ -42,6 +50,7 @@ public class TimingsCommand extends BukkitCommand {
         }
 
         boolean separate = "separate".equalsIgnoreCase(args[0]);
+        boolean ticks = TimedRegisteredListener.isTickTracked();
         if ("reset".equalsIgnoreCase(args[0])) {
             for (HandlerList handlerList : HandlerList.getHandlerLists()) {
                 for (RegisteredListener listener : handlerList.getRegisteredListeners()) {
@@ -86,7 +95,8 @@ public class TimingsCommand extends BukkitCommand {
                             totalTime += time;
                             Class<? extends Event> eventClass = trl.getEventClass();
                             if (count > 0 && eventClass != null) {
-                                fileTimings.println("    " + eventClass.getSimpleName() + (trl.hasMultiple() ? " (and sub-classes)" : "") + " Time: " + time + " Count: " + count + " Avg: " + avg);
+                                fileTimings.println("    " + eventClass.getSimpleName() + (trl.hasMultiple() ? " (and sub-classes)" : "") + " Time: " + time + " Count: " + count + " Avg: " + avg
+                                        + " P50: " + trl.getPercentile(50) + " P99: " + trl.getPercentile(99) + " Max: " + trl.getMaxTime() + " Worst tick: " + (ticks ? String.valueOf(trl.getWorstTickTime()) : "unknown"));
                             }
                         }
                     }
@@ -94,6 +104,7 @@ public class TimingsCommand extends BukkitCommand {
                 }
                 sender.sendMessage("Timings written to " + timings.getPath());
                 if (separate) sender.sendMessage("Names written to " + names.getPath());
+                if (!ticks) sender.sendMessage("Worst tick times are unknown because the server does not report ticks");
             } catch (IOException e) {
             } finally {
                 if (fileTimings != null) {
@@ -103,6 +114,63 @@ public class TimingsCommand extends BukkitCommand {
                     fileNames.close();
                 }
             }
+        } else if ("json".equalsIgnoreCase(args[0])) {
+            int index = 0;
+            File timingFolder = new File("timings");
+            timingFolder.mkdirs();
+            File timings = new File(timingFolder, "timings.json");
+            while (timings.exists()) timings = new File(timingFolder, "timings" + (++index) + ".json");
+
+            List<Object> plugins = new ArrayList<Object>();
+            for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+                List<Object> listeners = new ArrayList<Object>();
+                long totalTime = 0;
+                for (RegisteredListener listener : HandlerList.getRegisteredListeners(plugin)) {
+                    if (listener instanceof TimedRegisteredListener) {
+                        TimedRegisteredListener trl = (TimedRegisteredListener) listener;
+                        Class<? extends Event> eventClass = trl.getEventClass();
+                        if (trl.getCount() == 0 || eventClass == null) continue;
+                        totalTime += trl.getTotalTime();
+
+                        Map<String, Object> entry = new LinkedHashMap<String, Object>();
+                        entry.put("event", eventClass.getName());
+                        entry.put("subclasses", trl.hasMultiple());
+                        entry.put("listener", trl.getListener().getClass().getName());
+                        entry.put("priority", trl.getPriority().name());
+                        entry.put("count", trl.getCount());
+                        entry.put("total", trl.getTotalTime());
+                        entry.put("p50", trl.getPercentile(50));
+                        entry.put("p99", trl.getPercentile(99));
+                        entry.put("max", trl.getMaxTime());
+                        entry.put("worstTick", ticks ? trl.getWorstTickTime() : null);
+                        listeners.add(entry);
+                    }
+                }
+
+                Map<String, Object> entry = new LinkedHashMap<String, Object>();
+                entry.put("plugin", plugin.getDescription().getFullName());
+                entry.put("total", totalTime);
+                entry.put("listeners", listeners);
+                plugins.add(entry);
+            }
+
+            Writer writer = null;
+            try {
+                writer = new OutputStreamWriter(new FileOutputStream(timings), StandardCharsets.UTF_8);
+                JSONValue.writeJSONString(plugins, writer);
+                sender.sendMessage("Timings written to " + timings.getPath());
+                if (!ticks) sender.sendMessage("Worst tick times are unknown because the server does not report ticks");
+            } catch (IOException e) {
+                sender.sendMessage(ChatColor.RED + "Could not write timings to " + timings.getPath() + ": " + e.getMessage());
+                Bukkit.getLogger().log(Level.WARNING, "Could not write timings to " + timings.getPath(), e);
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
         } else {
             sender.sendMessage(ChatColor.RED + "Usage: " + usageMessage);
             return false;
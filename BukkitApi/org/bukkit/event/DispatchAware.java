@@ -0,0 +1,28 @@
+package org.bukkit.event;
+
+/**
+ * 需要知道当前正在调用哪个优先级的监听器的事件.
+ * <p>
+ * 插件管理器在分派实现了这个接口的事件时, 会在调用每个优先级的第一个监听器之前调用
+ * {@link #onPriority(EventPriority)}. 这类事件不会被批量调用.
+ * <p>
+ * 原文：An event that needs to know which priority of listeners is being
+ * called.
+ * <p>
+ * When the plugin manager dispatches an event implementing this interface,
+ * it calls {@link #onPriority(EventPriority)} before the first listener of
+ * each priority. Such events are never called in batches.
+ */
+public interface DispatchAware {
+
+    /**
+     * 在调用给定优先级的监听器之前被调用. 优先级按照调用顺序依次传入, 没有监听器的优先级会被跳过.
+     * <p>
+     * 原文：Called before the listeners of the given priority are called.
+     * Priorities are passed in the order they are called; priorities without
+     * listeners are skipped.
+     *
+     * @param priority 接下来被调用的监听器的优先级
+     */
+    public void onPriority(EventPriority priority);
+}
@@ -76,7 +76,7 @@ public abstract class Event {
      * <li>任何新注册或未注册的处理器将在一个事件开始执行后被忽略.</li>
      * <li>这个事件的处理器可能阻塞一段时间.</li>
      * <li>一些实现可能会有选择地声明一个事件是异步的.这一行为应被明确定义.</li>
-     * <li>异步调用不会计算在插件定时系统中.</li>
+     * <li>异步调用会计算在插件定时系统中, 但不计入每个tick的最长耗时.</li>
      * </ul>
      * <p>
      * 原文：Any custom event that should not by synchronized with other events must
@@ -95,7 +95,8 @@ public abstract class Event {
      * <li>The handlers for this event may block for any length of time.
      * <li>Some implementations may selectively declare a specific event use
      *     as asynchronous. This behavior should be clearly defined.</li>
-     * <li>Asynchronous calls are not calculated in the plugin timing system.</li>
+     * <li>Asynchronous calls are calculated in the plugin timing system, but
+     *     are not counted towards the worst time per tick.</li>
      * </ul>
      *
      * @return 默认情况下返回false, 事件触发异步了返回true 
@@ -0,0 +1,389 @@
+package org.bukkit.event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.hanging.HangingEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.vehicle.VehicleEvent;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.event.world.WorldEvent;
+
+/**
+ * 监听器的声明式过滤条件,按实体类型、世界名称、原因(cause)和移动粒度筛选事件.
+ * <p>
+ * 过滤条件由{@link HandlerList#getRegisteredListeners(Event)}在分派事件之前应用,
+ * 不匹配的监听器根本不会被调用.空的条件表示不限制.
+ * <p>
+ * 原文：Declarative filter of a listener, selecting events by entity type,
+ * world name, cause and move granularity.
+ * <p>
+ * Filters are applied by {@link HandlerList#getRegisteredListeners(Event)}
+ * before an event is dispatched, so listeners that do not match are never
+ * called. An empty condition does not restrict anything.
+ */
+public final class EventFilter {
+    private static final Class<?>[] ENTITY_EVENTS = {EntityEvent.class, PlayerEvent.class, VehicleEvent.class, HangingEvent.class};
+    private static final Class<?>[] WORLD_EVENTS = {EntityEvent.class, PlayerEvent.class, VehicleEvent.class, HangingEvent.class, BlockEvent.class, WorldEvent.class};
+    private static final Class<?>[] MOVE_EVENTS = {PlayerMoveEvent.class, VehicleMoveEvent.class};
+    private static final ClassValue<CauseAccessor> CAUSES = new ClassValue<CauseAccessor>() {
+        @Override
+        protected CauseAccessor computeValue(Class<?> type) {
+            return CauseAccessor.find(type);
+        }
+    };
+
+    private final Set<EntityType> entityTypes;
+    private final Set<String> worlds;
+    private final Set<String> causes;
+    private final MoveGranularity granularity;
+
+    /**
+     * 创建一个过滤条件.
+     * <p>
+     * 原文：Creates a filter.
+     *
+     * @param entityTypes 接受的实体类型,为空或null时不限制
+     * @param worlds 接受的世界名称,为空或null时不限制
+     * @param causes 接受的原因枚举常量名称,为空或null时不限制
+     */
+    public EventFilter(Collection<EntityType> entityTypes, Collection<String> worlds, Collection<String> causes) {
+        this(entityTypes, worlds, causes, MoveGranularity.ANY);
+    }
+
+    /**
+     * 创建一个带有移动粒度的过滤条件.
+     * <p>
+     * 原文：Creates a filter with a move granularity.
+     *
+     * @param entityTypes 接受的实体类型,为空或null时不限制
+     * @param worlds 接受的世界名称,为空或null时不限制
+     * @param causes 接受的原因枚举常量名称,为空或null时不限制
+     * @param granularity 接受的移动粒度,{@link MoveGranularity#ANY}或null时不限制
+     */
+    public EventFilter(Collection<EntityType> entityTypes, Collection<String> worlds, Collection<String> causes, MoveGranularity granularity) {
+        this.granularity = granularity == MoveGranularity.ANY ? null : granularity;
+        this.entityTypes = entityTypes == null || entityTypes.isEmpty() ? null : Collections.unmodifiableSet(EnumSet.copyOf(entityTypes));
+        this.worlds = worlds == null || worlds.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<String>(worlds));
+        this.causes = causes == null || causes.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<String>(causes));
+    }
+
+    /**
+     * 从事件处理器注解中读取过滤条件.
+     * <p>
+     * 原文：Reads the filter of an event handler annotation.
+     *
+     * @param handler 事件处理器注解
+     * @return 过滤条件,如果注解没有声明任何条件则返回null
+     */
+    public static EventFilter of(EventHandler handler) {
+        Validate.notNull(handler, "Handler cannot be null");
+        if (handler.entityTypes().length == 0 && handler.worlds().length == 0 && handler.causes().length == 0 && handler.granularity() == MoveGranularity.ANY) {
+            return null;
+        }
+        return new EventFilter(Arrays.asList(handler.entityTypes()), Arrays.asList(handler.worlds()), Arrays.asList(handler.causes()), handler.granularity());
+    }
+
+    /**
+     * 获取接受的实体类型.
+     * <p>
+     * 原文：Gets the accepted entity types.
+     *
+     * @return 接受的实体类型,为空时不限制
+     */
+    public Set<EntityType> getEntityTypes() {
+        return entityTypes == null ? Collections.<EntityType>emptySet() : entityTypes;
+    }
+
+    /**
+     * 获取接受的世界名称.
+     * <p>
+     * 原文：Gets the accepted world names.
+     *
+     * @return 接受的世界名称,为空时不限制
+     */
+    public Set<String> getWorlds() {
+        return worlds == null ? Collections.<String>emptySet() : worlds;
+    }
+
+    /**
+     * 获取接受的原因枚举常量名称.
+     * <p>
+     * 原文：Gets the names of the accepted cause constants.
+     *
+     * @return 接受的原因名称,为空时不限制
+     */
+    public Set<String> getCauses() {
+        return causes == null ? Collections.<String>emptySet() : causes;
+    }
+
+    /**
+     * 获取接受的移动粒度.
+     * <p>
+     * 原文：Gets the accepted move granularity.
+     *
+     * @return 接受的移动粒度,{@link MoveGranularity#ANY}表示不限制
+     */
+    public MoveGranularity getGranularity() {
+        return granularity == null ? MoveGranularity.ANY : granularity;
+    }
+
+    /**
+     * 检查给定的事件类是否提供了这个过滤条件用到的所有属性,
+     * 并且所有原因名称都是该事件原因枚举的常量.
+     * <p>
+     * 原文：Checks whether the given event class provides every property this
+     * filter uses, and whether every cause name is a constant of the event's
+     * cause enum.
+     *
+     * @param eventClass 事件类
+     * @return 如果可以用这个过滤条件监听该事件则返回true
+     */
+    public boolean supports(Class<? extends Event> eventClass) {
+        if (entityTypes != null && !isAny(eventClass, ENTITY_EVENTS)) {
+            return false;
+        }
+        if (worlds != null && !isAny(eventClass, WORLD_EVENTS)) {
+            return false;
+        }
+        if (granularity != null && !isAny(eventClass, MOVE_EVENTS)) {
+            return false;
+        }
+        if (causes != null) {
+            CauseAccessor accessor = CAUSES.get(eventClass);
+            if (accessor == null) {
+                return false;
+            }
+            for (String cause : causes) {
+                if (!accessor.names.contains(cause)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 检查给定的事件是否满足这个过滤条件.
+     * <p>
+     * 原文：Checks whether the given event passes this filter.
+     *
+     * @param event 要检查的事件
+     * @return 如果事件满足所有条件则返回true
+     */
+    public boolean matches(Event event) {
+        return matches(key(event, entityTypes != null, worlds != null, causes != null, granularity != null));
+    }
+
+    boolean usesEntityType() {
+        return entityTypes != null;
+    }
+
+    boolean usesWorld() {
+        return worlds != null;
+    }
+
+    boolean usesCause() {
+        return causes != null;
+    }
+
+    boolean matches(Key key) {
+        return (entityTypes == null || entityTypes.contains(key.entityType))
+                && (worlds == null || worlds.contains(key.world))
+                && (causes == null || causes.contains(key.cause))
+                && (granularity == null || (key.moves & granularity.mask()) != 0);
+    }
+
+    /**
+     * Extracts the properties of an event that filters select on. Only the
+     * requested properties are looked up, the others are left null.
+     */
+    static Key key(Event event, boolean entityType, boolean world, boolean cause, boolean move) {
+        return new Key(
+                entityType ? getEntityType(event) : null,
+                world ? getWorldName(event) : null,
+                cause ? getCause(event) : null,
+                move ? getMoves(event) : 0);
+    }
+
+    private static boolean isAny(Class<?> eventClass, Class<?>[] types) {
+        for (Class<?> type : types) {
+            if (type.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entity getEntity(Event event) {
+        if (event instanceof EntityEvent) {
+            return ((EntityEvent) event).getEntity();
+        } else if (event instanceof PlayerEvent) {
+            return ((PlayerEvent) event).getPlayer();
+        } else if (event instanceof VehicleEvent) {
+            return ((VehicleEvent) event).getVehicle();
+        } else if (event instanceof HangingEvent) {
+            return ((HangingEvent) event).getEntity();
+        }
+        return null;
+    }
+
+    private static EntityType getEntityType(Event event) {
+        if (event instanceof PlayerEvent) {
+            return EntityType.PLAYER;
+        }
+        Entity entity = getEntity(event);
+        return entity == null ? null : entity.getType();
+    }
+
+    private static String getWorldName(Event event) {
+        World world = null;
+        if (event instanceof WorldEvent) {
+            world = ((WorldEvent) event).getWorld();
+        } else if (event instanceof BlockEvent) {
+            Block block = ((BlockEvent) event).getBlock();
+            world = block == null ? null : block.getWorld();
+        } else {
+            Entity entity = getEntity(event);
+            world = entity == null ? null : entity.getWorld();
+        }
+        return world == null ? null : world.getName();
+    }
+
+    private static int getMoves(Event event) {
+        if (event instanceof PlayerMoveEvent) {
+            return MoveGranularity.changes(((PlayerMoveEvent) event).getFrom(), ((PlayerMoveEvent) event).getTo());
+        } else if (event instanceof VehicleMoveEvent) {
+            return MoveGranularity.changes(((VehicleMoveEvent) event).getFrom(), ((VehicleMoveEvent) event).getTo());
+        }
+        return 0;
+    }
+
+    private static String getCause(Event event) {
+        CauseAccessor accessor = CAUSES.get(event.getClass());
+        if (accessor == null) {
+            return null;
+        }
+        Enum<?> cause;
+        try {
+            cause = (Enum<?>) accessor.getter.invokeExact(event);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+        return cause == null ? null : cause.name();
+    }
+
+    /**
+     * The filtered properties of one event. Used as the key of the per-key
+     * listener arrays of a handler list.
+     */
+    static final class Key {
+        private final EntityType entityType;
+        private final String world;
+        private final String cause;
+        private final int moves;
+        private final int hash;
+
+        private Key(EntityType entityType, String world, String cause, int moves) {
+            this.entityType = entityType;
+            this.world = world;
+            this.cause = cause;
+            this.moves = moves;
+            this.hash = 31 * Arrays.hashCode(new Object[] {entityType, world, cause}) + moves;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return entityType == other.entityType
+                    && moves == other.moves
+                    && (world == null ? other.world == null : world.equals(other.world))
+                    && (cause == null ? other.cause == null : cause.equals(other.cause));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The cause getter of an event class: {@code getCause()} if it returns an
+     * enum, otherwise the first other enum getter whose name ends with
+     * {@code Cause} or {@code Reason}, such as
+     * {@code CreatureSpawnEvent.getSpawnReason()}.
+     */
+    private static final class CauseAccessor {
+        private final MethodHandle getter;
+        private final Set<String> names = new HashSet<String>();
+
+        private CauseAccessor(MethodHandle getter, Class<?> type) {
+            this.getter = getter;
+            for (Object constant : type.getEnumConstants()) {
+                names.add(((Enum<?>) constant).name());
+            }
+        }
+
+        private static CauseAccessor find(Class<?> eventClass) {
+            Method[] methods = eventClass.getMethods();
+            Arrays.sort(methods, new Comparator<Method>() {
+                public int compare(Method a, Method b) {
+                    return a.getName().compareTo(b.getName());
+                }
+            });
+
+            Method found = null;
+            for (Method method : methods) {
+                if (method.getParameterTypes().length != 0 || !method.getReturnType().isEnum()) {
+                    continue;
+                }
+                String name = method.getName();
+                if (name.equals("getCause")) {
+                    found = method;
+                    break;
+                }
+                if (found == null && name.startsWith("get") && (name.endsWith("Cause") || name.endsWith("Reason"))) {
+                    found = method;
+                }
+            }
+            if (found == null) {
+                return null;
+            }
+
+            try {
+                found.setAccessible(true);
+                MethodHandle getter = MethodHandles.lookup().unreflect(found).asType(MethodType.methodType(Enum.class, Event.class));
+                return new CauseAccessor(getter, found.getReturnType());
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+}
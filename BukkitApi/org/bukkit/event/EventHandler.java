@@ -5,6 +5,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.bukkit.entity.EntityType;
+
 /**
  * 用来标记要处理的事件的注释。
  */
@@ -55,4 +57,120 @@ public @interface EventHandler {
      * @return 事件是否被忽略
      */
     boolean ignoreCancelled() default false;
+
+    /**
+     * 定义处理器是否允许批量调用.
+     * <p>
+     * 通过{@link org.bukkit.plugin.PluginManager#callEvents(java.util.List)}批量调用事件时,
+     * 如果一个事件的所有处理器都允许批量调用, 每个处理器会一次性处理完整批事件,
+     * 然后才轮到下一个处理器. 每个事件仍然按优先级顺序经过所有处理器, 取消状态也是逐个事件判断的.
+     * <p>
+     * 原文：Define if the handler may be called in batches.
+     * <p>
+     * When events are called through
+     * {@link org.bukkit.plugin.PluginManager#callEvents(java.util.List)} and
+     * every handler of the event allows batching, each handler receives the
+     * whole batch before the next handler runs. Every event still passes the
+     * handlers in priority order, and cancellation is checked per event.
+     *
+     * @return 处理器是否允许批量调用
+     */
+    boolean batchable() default false;
+
+    /**
+     * 定义处理器是否为异步观察者.
+     * <p>
+     * 异步观察者必须使用{@link EventPriority#MONITOR}优先级.它们不会在调用事件的线程上运行,
+     * 而是在其他所有处理器都处理完事件之后交给一个工作线程池执行, 因此适合只记录日志或发送统计数据的处理器.
+     * 观察者收到的是事件对象本身, 而不是快照: 调用事件的代码在事件分派之后仍然可能修改它,
+     * 所以观察者读取到的值可能与最终结果不同. 观察者只能读取事件, 不能修改它,
+     * 应该在开始时复制需要的值, 也不应访问世界等非线程安全的状态.
+     * 如果观察者跟不上, 调用可能会被丢弃.
+     * <p>
+     * 原文：Define if the handler is an asynchronous observer.
+     * <p>
+     * Asynchronous observers must use {@link EventPriority#MONITOR}. They do
+     * not run on the thread that called the event, but are handed to a pool
+     * of worker threads once every other listener has handled the event,
+     * which suits handlers that only log or ship analytics. Observers receive
+     * the event object itself, not a snapshot: the code that called the
+     * event may still modify it after the dispatch, so an observer may read
+     * values that differ from the final outcome. Observers may only read the
+     * event, should copy the values they need first, must not modify it, and
+     * should not touch state that is not thread-safe, such as worlds. Calls
+     * may be dropped if the observers cannot keep up.
+     *
+     * @return 处理器是否为异步观察者
+     * @see org.bukkit.plugin.EventObserverPool
+     */
+    boolean asyncObserver() default false;
+
+    /**
+     * 定义处理器接受的实体类型.
+     * <p>
+     * 只有涉及这些实体类型的事件才会调用这个处理器, 为空时不限制.
+     * 适用于实体、玩家、载具和悬挂物事件.
+     * <p>
+     * 原文：Define the entity types the handler accepts.
+     * <p>
+     * The handler is only called for events involving one of these entity
+     * types, or for all events if empty. Applies to entity, player, vehicle
+     * and hanging events.
+     *
+     * @return 接受的实体类型
+     * @see EventFilter
+     */
+    EntityType[] entityTypes() default {};
+
+    /**
+     * 定义处理器接受的世界名称.
+     * <p>
+     * 只有发生在这些世界中的事件才会调用这个处理器, 为空时不限制.
+     * 适用于实体、玩家、载具、悬挂物、方块和世界事件.
+     * <p>
+     * 原文：Define the names of the worlds the handler accepts.
+     * <p>
+     * The handler is only called for events in one of these worlds, or for
+     * all events if empty. Applies to entity, player, vehicle, hanging, block
+     * and world events.
+     *
+     * @return 接受的世界名称
+     * @see EventFilter
+     */
+    String[] worlds() default {};
+
+    /**
+     * 定义处理器接受的原因.
+     * <p>
+     * 名称是事件原因枚举的常量名, 例如EntityDamageEvent的"FALL"或CreatureSpawnEvent的"SPAWNER".
+     * 只有原因为其中之一的事件才会调用这个处理器, 为空时不限制.
+     * <p>
+     * 原文：Define the causes the handler accepts.
+     * <p>
+     * Names are constants of the event's cause enum, such as "FALL" for
+     * EntityDamageEvent or "SPAWNER" for CreatureSpawnEvent. The handler is
+     * only called for events with one of these causes, or for all events if
+     * empty.
+     *
+     * @return 接受的原因名称
+     * @see EventFilter
+     */
+    String[] causes() default {};
+
+    /**
+     * 定义移动事件处理器关心的变化粒度.
+     * <p>
+     * 例如{@link MoveGranularity#BLOCK}的处理器不会因为方块内部的移动或者只转动视角而被调用.
+     * 适用于玩家移动和载具移动事件.
+     * <p>
+     * 原文：Define the granularity of change a move handler cares about.
+     * <p>
+     * For example, a {@link MoveGranularity#BLOCK} handler is not called for
+     * moves within a block or for looking around. Applies to player and
+     * vehicle move events.
+     *
+     * @return 移动粒度
+     * @see EventFilter
+     */
+    MoveGranularity granularity() default MoveGranularity.ANY;
 }
@@ -0,0 +1,152 @@
+package org.bukkit.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * 一个世界中的区域,用于把监听器限定在这个区域内发生的方块事件上.
+ * <p>
+ * 限定了区域的监听器按区块建立索引,方块事件只会分派给该方块所在区块的监听器,
+ * 因此区域监听器的数量不会增加其他位置方块更新的开销.
+ * <p>
+ * 原文：A region of a world, used to scope listeners to block events that
+ * happen inside it.
+ * <p>
+ * Scoped listeners are indexed by chunk, and a block event is only
+ * dispatched to the scoped listeners of the block's chunk, so the number of
+ * scoped listeners adds nothing to the cost of block updates elsewhere.
+ *
+ * @see org.bukkit.plugin.PluginManager#registerEvents(Listener, org.bukkit.plugin.Plugin, EventRegion)
+ */
+public final class EventRegion {
+    /**
+     * 一个区域最多可以覆盖的区块数量.
+     * <p>
+     * 原文：The maximum number of chunks a region may cover.
+     */
+    public static final int MAX_CHUNKS = 1 << 16;
+
+    private final UUID world;
+    private final long[] chunks;
+    private final BoundingBox box;
+
+    private EventRegion(UUID world, long[] chunks, BoundingBox box) {
+        Validate.isTrue(chunks.length <= MAX_CHUNKS, "Region cannot cover more than " + MAX_CHUNKS + " chunks");
+        Arrays.sort(chunks);
+        int unique = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            if (unique == 0 || chunks[i] != chunks[unique - 1]) {
+                chunks[unique++] = chunks[i];
+            }
+        }
+        this.world = world;
+        this.chunks = Arrays.copyOf(chunks, unique);
+        this.box = box;
+    }
+
+    /**
+     * 创建一个由给定区块组成的区域.
+     * <p>
+     * 原文：Creates a region made of the given chunks.
+     *
+     * @param world 区块所在的世界
+     * @param chunks 区域内的区块
+     * @return 区域
+     */
+    public static EventRegion ofChunks(World world, Collection<Chunk> chunks) {
+        Validate.notNull(world, "World cannot be null");
+        Validate.notEmpty(chunks, "Chunks cannot be empty");
+        long[] keys = new long[chunks.size()];
+        int i = 0;
+        for (Chunk chunk : chunks) {
+            Validate.isTrue(world.equals(chunk.getWorld()), "Chunk " + chunk + " is not in " + world.getName());
+            keys[i++] = chunkKey(chunk.getX(), chunk.getZ());
+        }
+        return new EventRegion(world.getUID(), keys, null);
+    }
+
+    /**
+     * 创建一个由边界框围成的区域.方块的中心在边界框内时,方块属于这个区域.
+     * <p>
+     * 原文：Creates a region enclosed by a bounding box. A block is inside the
+     * region if its center is inside the box.
+     *
+     * @param world 区域所在的世界
+     * @param box 区域的边界框
+     * @return 区域
+     */
+    public static EventRegion of(World world, BoundingBox box) {
+        Validate.notNull(world, "World cannot be null");
+        Validate.notNull(box, "Box cannot be null");
+        int minX = (int) Math.floor(box.getMinX()) >> 4;
+        int minZ = (int) Math.floor(box.getMinZ()) >> 4;
+        int maxX = (int) Math.floor(box.getMaxX()) >> 4;
+        int maxZ = (int) Math.floor(box.getMaxZ()) >> 4;
+        long count = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+        Validate.isTrue(count <= MAX_CHUNKS, "Region cannot cover more than " + MAX_CHUNKS + " chunks");
+
+        long[] keys = new long[(int) count];
+        int i = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                keys[i++] = chunkKey(x, z);
+            }
+        }
+        return new EventRegion(world.getUID(), keys, box.clone());
+    }
+
+    /**
+     * 获取区域所在世界的UID.
+     * <p>
+     * 原文：Gets the UID of the world of this region.
+     *
+     * @return 世界的UID
+     */
+    public UUID getWorld() {
+        return world;
+    }
+
+    /**
+     * 获取区域的边界框.
+     * <p>
+     * 原文：Gets the bounding box of this region.
+     *
+     * @return 边界框的副本,如果区域由区块组成则返回null
+     */
+    public BoundingBox getBoundingBox() {
+        return box == null ? null : box.clone();
+    }
+
+    /**
+     * 检查给定的方块是否在这个区域内.
+     * <p>
+     * 原文：Checks whether the given block is inside this region.
+     *
+     * @param block 要检查的方块
+     * @return 如果方块在区域内则返回true
+     */
+    public boolean contains(Block block) {
+        if (!world.equals(block.getWorld().getUID())) {
+            return false;
+        }
+        if (box != null) {
+            return box.contains(block.getX() + 0.5, block.getY() + 0.5, block.getZ() + 0.5);
+        }
+        return Arrays.binarySearch(chunks, chunkKey(block.getX() >> 4, block.getZ() >> 4)) >= 0;
+    }
+
+    long[] getChunkKeys() {
+        return chunks;
+    }
+
+    static long chunkKey(int x, int z) {
+        return (long) x & 0xFFFFFFFFL | ((long) z & 0xFFFFFFFFL) << 32;
+    }
+}
@@ -5,6 +5,11 @@ import org.bukkit.plugin.RegisteredListener;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.event.block.BlockEvent;
 
 /**
  * 一个处理事件的类, 存储每个事件。基于 lahwran's fevents.
@@ -16,6 +21,16 @@ public class HandlerList {
      */
     private volatile RegisteredListener[] handlers = null;
 
+    /**
+     * 已注册的监听器的数量.无需合并(bake)即可判断是否有监听器.
+     */
+    private volatile int listenerCount = 0;
+
+    /**
+     * 按过滤条件的键合并(bake)的监听器数组,对应{@link #handlers}的某一次合并结果.
+     */
+    private volatile KeyedHandlers keyedHandlers = null;
+
     /**
      * 动态HandlerList.使用register()和unreguster()进行改动，当有任何改动的时候自动bake(合并)HandlerList.
      * <p>
@@ -25,13 +40,24 @@ public class HandlerList {
      * unregister() and are automatically baked to the handlers array any time
      * they have changed.
      */
-    private final EnumMap<EventPriority, ArrayList<RegisteredListener>> handlerslots;
+    private final EnumMap<EventPriority, LinkedHashSet<RegisteredListener>> handlerslots;
 
     /**
      * 所有已经创建的HandlerList,用于bakeAll().
      */
     private static ArrayList<HandlerList> allLists = new ArrayList<HandlerList>();
 
+    /**
+     * 每个插件在每个HandlerList中注册的监听器,用于按插件注销而无需遍历所有HandlerList.
+     * 这个索引和{@link #listenerIndex}都由本字段的锁保护,持有该锁时不能再获取其他锁.
+     */
+    private static final Map<Plugin, Map<HandlerList, Set<RegisteredListener>>> pluginIndex = new HashMap<Plugin, Map<HandlerList, Set<RegisteredListener>>>();
+
+    /**
+     * 每个监听器对象在每个HandlerList中注册的监听器,用于按监听器注销.
+     */
+    private static final Map<Listener, Map<HandlerList, Set<RegisteredListener>>> listenerIndex = new HashMap<Listener, Map<HandlerList, Set<RegisteredListener>>>();
+
     /**
      * 合并(bake)所有处理器列表.最好用在所有正常的事件注册完毕后,即所有插件都加载完了,如果你使用fevents插件系统.
      * <p>
@@ -56,13 +82,18 @@ public class HandlerList {
         synchronized (allLists) {
             for (HandlerList h : allLists) {
                 synchronized (h) {
-                    for (List<RegisteredListener> list : h.handlerslots.values()) {
+                    for (Set<RegisteredListener> list : h.handlerslots.values()) {
                         list.clear();
                     }
                     h.handlers = null;
+                    h.listenerCount = 0;
                 }
             }
         }
+        synchronized (pluginIndex) {
+            pluginIndex.clear();
+            listenerIndex.clear();
+        }
     }
 
     /**
@@ -73,11 +104,11 @@ public class HandlerList {
      * @param plugin 要注销监听器的插件
      */
     public static void unregisterAll(Plugin plugin) {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.unregister(plugin);
-            }
+        Map<HandlerList, Set<RegisteredListener>> registrations;
+        synchronized (pluginIndex) {
+            registrations = copyIndex(pluginIndex.get(plugin));
         }
+        unregisterIndexed(registrations);
     }
 
     /**
@@ -88,9 +119,34 @@ public class HandlerList {
      * @param listener 要注销的监听器
      */
     public static void unregisterAll(Listener listener) {
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                h.unregister(listener);
+        Map<HandlerList, Set<RegisteredListener>> registrations;
+        synchronized (pluginIndex) {
+            registrations = copyIndex(listenerIndex.get(listener));
+        }
+        unregisterIndexed(registrations);
+    }
+
+    private static Map<HandlerList, Set<RegisteredListener>> copyIndex(Map<HandlerList, Set<RegisteredListener>> registrations) {
+        Map<HandlerList, Set<RegisteredListener>> copy = new LinkedHashMap<HandlerList, Set<RegisteredListener>>();
+        if (registrations != null) {
+            for (Entry<HandlerList, Set<RegisteredListener>> entry : registrations.entrySet()) {
+                copy.put(entry.getKey(), new LinkedHashSet<RegisteredListener>(entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 从各个HandlerList中移除给定的监听器,并立即重新合并(bake)受影响的列表,
+     * 这样主线程上的下一次事件调用就不需要自己合并了.
+     */
+    private static void unregisterIndexed(Map<HandlerList, Set<RegisteredListener>> registrations) {
+        for (Entry<HandlerList, Set<RegisteredListener>> entry : registrations.entrySet()) {
+            HandlerList h = entry.getKey();
+            synchronized (h) {
+                if (h.removeAll(entry.getValue())) {
+                    h.bake();
+                }
             }
         }
     }
@@ -105,9 +161,9 @@ public class HandlerList {
      * The HandlerList is then added to meta-list for use in bakeAll()
      */
     public HandlerList() {
-        handlerslots = new EnumMap<EventPriority, ArrayList<RegisteredListener>>(EventPriority.class);
+        handlerslots = new EnumMap<EventPriority, LinkedHashSet<RegisteredListener>>(EventPriority.class);
         for (EventPriority o : EventPriority.values()) {
-            handlerslots.put(o, new ArrayList<RegisteredListener>());
+            handlerslots.put(o, new LinkedHashSet<RegisteredListener>());
         }
         synchronized (allLists) {
             allLists.add(this);
@@ -126,6 +182,11 @@ public class HandlerList {
             throw new IllegalStateException("This listener is already registered to priority " + listener.getPriority().toString());
         handlers = null;
         handlerslots.get(listener.getPriority()).add(listener);
+        listenerCount++;
+        synchronized (pluginIndex) {
+            addIndex(pluginIndex, listener.getPlugin(), listener);
+            addIndex(listenerIndex, listener.getListener(), listener);
+        }
     }
 
     /**
@@ -135,7 +196,7 @@ public class HandlerList {
      *
      * @param listeners 要注册的监听器
      */
-    public void registerAll(Collection<RegisteredListener> listeners) {
+    public synchronized void registerAll(Collection<RegisteredListener> listeners) {
         for (RegisteredListener listener : listeners) {
             register(listener);
         }
@@ -153,6 +214,11 @@ public class HandlerList {
     public synchronized void unregister(RegisteredListener listener) {
         if (handlerslots.get(listener.getPriority()).remove(listener)) {
             handlers = null;
+            listenerCount--;
+            synchronized (pluginIndex) {
+                removeIndex(pluginIndex, listener.getPlugin(), listener);
+                removeIndex(listenerIndex, listener.getListener(), listener);
+            }
         }
     }
 
@@ -164,16 +230,15 @@ public class HandlerList {
      * @param plugin 要移除监听器的插件
      */
     public synchronized void unregister(Plugin plugin) {
-        boolean changed = false;
-        for (List<RegisteredListener> list : handlerslots.values()) {
-            for (ListIterator<RegisteredListener> i = list.listIterator(); i.hasNext();) {
-                if (i.next().getPlugin().equals(plugin)) {
-                    i.remove();
-                    changed = true;
-                }
+        List<RegisteredListener> registered;
+        synchronized (pluginIndex) {
+            Map<HandlerList, Set<RegisteredListener>> registrations = pluginIndex.get(plugin);
+            if (registrations == null || !registrations.containsKey(this)) {
+                return;
             }
+            registered = new ArrayList<RegisteredListener>(registrations.get(this));
         }
-        if (changed) handlers = null;
+        removeAll(registered);
     }
 
     /**
@@ -184,16 +249,64 @@ public class HandlerList {
      * @param listener 要移除的监听器
      */
     public synchronized void unregister(Listener listener) {
-        boolean changed = false;
-        for (List<RegisteredListener> list : handlerslots.values()) {
-            for (ListIterator<RegisteredListener> i = list.listIterator(); i.hasNext();) {
-                if (i.next().getListener().equals(listener)) {
-                    i.remove();
-                    changed = true;
-                }
+        List<RegisteredListener> registered;
+        synchronized (pluginIndex) {
+            Map<HandlerList, Set<RegisteredListener>> registrations = listenerIndex.get(listener);
+            if (registrations == null || !registrations.containsKey(this)) {
+                return;
+            }
+            registered = new ArrayList<RegisteredListener>(registrations.get(this));
+        }
+        removeAll(registered);
+    }
+
+    private synchronized boolean removeAll(Collection<RegisteredListener> listeners) {
+        int removed = 0;
+        for (RegisteredListener listener : listeners) {
+            if (handlerslots.get(listener.getPriority()).remove(listener)) {
+                removed++;
+            }
+        }
+        if (removed == 0) {
+            return false;
+        }
+        handlers = null;
+        listenerCount -= removed;
+        synchronized (pluginIndex) {
+            for (RegisteredListener listener : listeners) {
+                removeIndex(pluginIndex, listener.getPlugin(), listener);
+                removeIndex(listenerIndex, listener.getListener(), listener);
+            }
+        }
+        return true;
+    }
+
+    private <K> void addIndex(Map<K, Map<HandlerList, Set<RegisteredListener>>> index, K key, RegisteredListener listener) {
+        Map<HandlerList, Set<RegisteredListener>> registrations = index.get(key);
+        if (registrations == null) {
+            registrations = new LinkedHashMap<HandlerList, Set<RegisteredListener>>();
+            index.put(key, registrations);
+        }
+        Set<RegisteredListener> registered = registrations.get(this);
+        if (registered == null) {
+            registered = new LinkedHashSet<RegisteredListener>();
+            registrations.put(this, registered);
+        }
+        registered.add(listener);
+    }
+
+    private <K> void removeIndex(Map<K, Map<HandlerList, Set<RegisteredListener>>> index, K key, RegisteredListener listener) {
+        Map<HandlerList, Set<RegisteredListener>> registrations = index.get(key);
+        if (registrations == null) {
+            return;
+        }
+        Set<RegisteredListener> registered = registrations.get(this);
+        if (registered != null && registered.remove(listener) && registered.isEmpty()) {
+            registrations.remove(this);
+            if (registrations.isEmpty()) {
+                index.remove(key);
             }
         }
-        if (changed) handlers = null;
     }
 
     /**
@@ -204,7 +317,7 @@ public class HandlerList {
     public synchronized void bake() {
         if (handlers != null) return; // don't re-bake when still valid
         List<RegisteredListener> entries = new ArrayList<RegisteredListener>();
-        for (Entry<EventPriority, ArrayList<RegisteredListener>> entry : handlerslots.entrySet()) {
+        for (Entry<EventPriority, LinkedHashSet<RegisteredListener>> entry : handlerslots.entrySet()) {
             entries.addAll(entry.getValue());
         }
         handlers = entries.toArray(new RegisteredListener[entries.size()]);
@@ -223,6 +336,96 @@ public class HandlerList {
         return handlers;
     }
 
+    /**
+     * 获取给定事件应该调用的已注册的监听器.
+     * <p>
+     * 带有{@link EventFilter 过滤条件}的监听器只有在事件满足条件时才会包含在内.
+     * 结果按事件的实体类型、世界和原因缓存为单独合并(bake)的数组,
+     * 因此不匹配的监听器不会增加分派的开销.
+     * 限定了{@link EventRegion 区域}的监听器只会在方块事件发生在该区域内时包含在内,
+     * 它们按区块建立索引,排在同一优先级的全局监听器之后.
+     * 如果没有监听器带有过滤条件或区域,返回值与{@link #getRegisteredListeners()}相同.
+     * <p>
+     * 原文：Get the baked registered listeners that should be called for the
+     * given event.
+     * <p>
+     * Listeners with an {@link EventFilter} are only included if the event
+     * passes it. Results are cached as separately baked arrays per entity
+     * type, world and cause of the event, so listeners that do not match add
+     * nothing to the cost of dispatching. Listeners scoped to an
+     * {@link EventRegion} are only included for block events inside their
+     * region; they are indexed by chunk and run after the global listeners
+     * of the same priority. If no listener has a filter or a region, this
+     * returns the same array as {@link #getRegisteredListeners()}.
+     *
+     * @param event 要分派的事件
+     * @return 应该调用的监听器的数组
+     */
+    public RegisteredListener[] getRegisteredListeners(Event event) {
+        return getKeyedHandlers(getRegisteredListeners()).get(event);
+    }
+
+    private KeyedHandlers getKeyedHandlers(RegisteredListener[] handlers) {
+        KeyedHandlers keyed = keyedHandlers;
+        if (keyed == null || keyed.handlers != handlers) {
+            keyed = new KeyedHandlers(handlers);
+            keyedHandlers = keyed;
+        }
+        return keyed;
+    }
+
+    /**
+     * 检查是否有监听器关心从一个位置到另一个位置的移动.
+     * <p>
+     * 服务器可以在构造移动事件之前调用这个方法,如果所有监听器的{@link MoveGranularity 移动粒度}
+     * 都不满足,就不必构造和调用事件.
+     * <p>
+     * 原文：Checks whether any listener cares about a move from one location
+     * to another.
+     * <p>
+     * Servers can call this before constructing a move event; if the move
+     * does not reach the {@link MoveGranularity} of any listener, the event
+     * does not need to be constructed or called at all.
+     *
+     * @param from 移动前的位置
+     * @param to 移动后的位置
+     * @return 如果至少有一个监听器关心这次移动则返回true
+     */
+    public boolean hasListeners(Location from, Location to) {
+        if (listenerCount == 0) {
+            return false;
+        }
+        int moves = getKeyedHandlers(getRegisteredListeners()).moves;
+        return (moves & MoveGranularity.ANY.mask()) != 0 || (moves & MoveGranularity.changes(from, to)) != 0;
+    }
+
+    /**
+     * 检查这个处理器列表中是否有已注册的监听器.
+     * <p>
+     * 这个方法不会合并(bake)处理器列表,可以在构造事件之前用来判断是否值得构造它.
+     * <p>
+     * 原文：Checks whether any listener is registered in this handler list.
+     * <p>
+     * This does not bake the handler list, so it can be used to decide
+     * whether an event is worth constructing at all.
+     *
+     * @return 如果至少有一个已注册的监听器则返回true
+     */
+    public boolean hasListeners() {
+        return listenerCount != 0;
+    }
+
+    /**
+     * 获取这个处理器列表中已注册的监听器的数量.
+     * <p>
+     * 原文：Gets the number of listeners registered in this handler list.
+     *
+     * @return 已注册的监听器的数量
+     */
+    public int getListenerCount() {
+        return listenerCount;
+    }
+
     /**
      * 获取与这个处理器列表相关的指定插件注册的监听器.
      * <p>
@@ -234,16 +437,11 @@ public class HandlerList {
      */
     public static ArrayList<RegisteredListener> getRegisteredListeners(Plugin plugin) {
         ArrayList<RegisteredListener> listeners = new ArrayList<RegisteredListener>();
-        synchronized (allLists) {
-            for (HandlerList h : allLists) {
-                synchronized (h) {
-                    for (List<RegisteredListener> list : h.handlerslots.values()) {
-                        for (RegisteredListener listener : list) {
-                            if (listener.getPlugin().equals(plugin)) {
-                                listeners.add(listener);
-                            }
-                        }
-                    }
+        synchronized (pluginIndex) {
+            Map<HandlerList, Set<RegisteredListener>> registrations = pluginIndex.get(plugin);
+            if (registrations != null) {
+                for (Set<RegisteredListener> registered : registrations.values()) {
+                    listeners.addAll(registered);
                 }
             }
         }
@@ -263,4 +461,153 @@ public class HandlerList {
             return (ArrayList<HandlerList>) allLists.clone();
         }
     }
+
+    /**
+     * The listener arrays of one bake, split by the filter key of the event,
+     * plus the chunk index of the scoped listeners. Replaced whenever the
+     * handler list is baked again.
+     */
+    private static final class KeyedHandlers {
+        private static final int MAX_KEYS = 1024;
+
+        private final RegisteredListener[] handlers;
+        private final RegisteredListener[] global;
+        private final boolean entityType;
+        private final boolean world;
+        private final boolean cause;
+        private final boolean move;
+        private final int moves;
+        private final ConcurrentHashMap<EventFilter.Key, RegisteredListener[]> byKey;
+        private final Map<UUID, Map<Long, RegisteredListener[]>> regional;
+
+        private KeyedHandlers(RegisteredListener[] handlers) {
+            this.handlers = handlers;
+            List<RegisteredListener> global = new ArrayList<RegisteredListener>(handlers.length);
+            Map<UUID, Map<Long, List<RegisteredListener>>> regional = new HashMap<UUID, Map<Long, List<RegisteredListener>>>();
+            boolean entityType = false, world = false, cause = false;
+            int moves = 0;
+            for (RegisteredListener handler : handlers) {
+                EventRegion region = handler.getRegion();
+                if (region != null) {
+                    index(regional, region, handler);
+                    continue;
+                }
+                global.add(handler);
+                EventFilter filter = handler.getFilter();
+                if (filter != null) {
+                    entityType |= filter.usesEntityType();
+                    world |= filter.usesWorld();
+                    cause |= filter.usesCause();
+                }
+                moves |= filter == null ? MoveGranularity.ANY.mask() : filter.getGranularity().mask();
+            }
+            this.global = global.size() == handlers.length ? handlers : global.toArray(new RegisteredListener[global.size()]);
+            this.entityType = entityType;
+            this.world = world;
+            this.cause = cause;
+            this.move = (moves & ~MoveGranularity.ANY.mask()) != 0;
+            this.moves = moves;
+            this.byKey = entityType || world || cause || move ? new ConcurrentHashMap<EventFilter.Key, RegisteredListener[]>() : null;
+            this.regional = regional.isEmpty() ? null : bakeIndex(regional);
+        }
+
+        private static void index(Map<UUID, Map<Long, List<RegisteredListener>>> regional, EventRegion region, RegisteredListener handler) {
+            Map<Long, List<RegisteredListener>> chunks = regional.get(region.getWorld());
+            if (chunks == null) {
+                chunks = new HashMap<Long, List<RegisteredListener>>();
+                regional.put(region.getWorld(), chunks);
+            }
+            for (long chunk : region.getChunkKeys()) {
+                List<RegisteredListener> listeners = chunks.get(chunk);
+                if (listeners == null) {
+                    listeners = new ArrayList<RegisteredListener>(2);
+                    chunks.put(chunk, listeners);
+                }
+                listeners.add(handler);
+            }
+        }
+
+        private static Map<UUID, Map<Long, RegisteredListener[]>> bakeIndex(Map<UUID, Map<Long, List<RegisteredListener>>> regional) {
+            Map<UUID, Map<Long, RegisteredListener[]>> baked = new HashMap<UUID, Map<Long, RegisteredListener[]>>();
+            for (Entry<UUID, Map<Long, List<RegisteredListener>>> world : regional.entrySet()) {
+                Map<Long, RegisteredListener[]> chunks = new HashMap<Long, RegisteredListener[]>();
+                for (Entry<Long, List<RegisteredListener>> chunk : world.getValue().entrySet()) {
+                    List<RegisteredListener> listeners = chunk.getValue();
+                    chunks.put(chunk.getKey(), listeners.toArray(new RegisteredListener[listeners.size()]));
+                }
+                baked.put(world.getKey(), chunks);
+            }
+            return baked;
+        }
+
+        private RegisteredListener[] get(Event event) {
+            RegisteredListener[] matching = getGlobal(event);
+            if (regional == null || !(event instanceof BlockEvent)) {
+                return matching;
+            }
+            Block block = ((BlockEvent) event).getBlock();
+            Map<Long, RegisteredListener[]> chunks = regional.get(block.getWorld().getUID());
+            if (chunks == null) {
+                return matching;
+            }
+            RegisteredListener[] scoped = chunks.get(EventRegion.chunkKey(block.getX() >> 4, block.getZ() >> 4));
+            if (scoped == null) {
+                return matching;
+            }
+            return merge(matching, scoped, event, block);
+        }
+
+        /**
+         * Merges the scoped listeners that accept the event into the global
+         * ones, keeping priority order. Both arrays are already sorted by
+         * priority.
+         */
+        private static RegisteredListener[] merge(RegisteredListener[] matching, RegisteredListener[] scoped, Event event, Block block) {
+            List<RegisteredListener> entries = null;
+            int next = 0;
+            for (RegisteredListener handler : scoped) {
+                EventFilter filter = handler.getFilter();
+                if (!handler.getRegion().contains(block) || (filter != null && !filter.matches(event))) {
+                    continue;
+                }
+                if (entries == null) {
+                    entries = new ArrayList<RegisteredListener>(matching.length + scoped.length);
+                }
+                while (next < matching.length && matching[next].getPriority().ordinal() <= handler.getPriority().ordinal()) {
+                    entries.add(matching[next++]);
+                }
+                entries.add(handler);
+            }
+            if (entries == null) {
+                return matching;
+            }
+            while (next < matching.length) {
+                entries.add(matching[next++]);
+            }
+            return entries.toArray(new RegisteredListener[entries.size()]);
+        }
+
+        private RegisteredListener[] getGlobal(Event event) {
+            if (byKey == null) {
+                return global;
+            }
+            EventFilter.Key key = EventFilter.key(event, entityType, world, cause, move);
+            RegisteredListener[] matching = byKey.get(key);
+            if (matching == null) {
+                List<RegisteredListener> entries = new ArrayList<RegisteredListener>(global.length);
+                for (RegisteredListener handler : global) {
+                    EventFilter filter = handler.getFilter();
+                    if (filter == null || filter.matches(key)) {
+                        entries.add(handler);
+                    }
+                }
+                matching = entries.toArray(new RegisteredListener[entries.size()]);
+                // Worlds can be created at will, don't let their names grow the cache forever
+                if (byKey.size() < MAX_KEYS) {
+                    byKey.putIfAbsent(key, matching);
+                }
+            }
+            return matching;
+        }
+    }
 }
\ No newline at end of file
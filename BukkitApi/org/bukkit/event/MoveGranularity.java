@@ -0,0 +1,99 @@
+package org.bukkit.event;
+
+import org.bukkit.Location;
+
+/**
+ * 移动事件监听器关心的变化粒度.
+ * <p>
+ * 用于{@link EventHandler#granularity()},只有当移动达到这个粒度时才会调用监听器.
+ * 适用于{@link org.bukkit.event.player.PlayerMoveEvent}和
+ * {@link org.bukkit.event.vehicle.VehicleMoveEvent}.切换世界总是满足所有粒度.
+ * <p>
+ * 原文：The granularity of change a move listener cares about.
+ * <p>
+ * Used by {@link EventHandler#granularity()}, the listener is only called
+ * for moves that reach this granularity. Applies to
+ * {@link org.bukkit.event.player.PlayerMoveEvent} and
+ * {@link org.bukkit.event.vehicle.VehicleMoveEvent}. Changing worlds always
+ * satisfies every granularity.
+ */
+public enum MoveGranularity {
+    /**
+     * 任何移动,包括没有任何变化的移动.
+     * <p>
+     * 原文：Any move, including moves that change nothing.
+     */
+    ANY,
+    /**
+     * 朝向(yaw或pitch)发生了变化.
+     * <p>
+     * 原文：The yaw or pitch changed.
+     */
+    ROTATION,
+    /**
+     * 坐标发生了变化.
+     * <p>
+     * 原文：The coordinates changed.
+     */
+    POSITION,
+    /**
+     * 所在的方块发生了变化.
+     * <p>
+     * 原文：The block coordinates changed.
+     */
+    BLOCK,
+    /**
+     * 所在的区块发生了变化.
+     * <p>
+     * 原文：The chunk changed.
+     */
+    CHUNK;
+
+    private final int mask = 1 << ordinal();
+
+    /**
+     * 检查从一个位置到另一个位置的移动是否达到了这个粒度.
+     * <p>
+     * 原文：Checks whether a move from one location to another reaches this
+     * granularity.
+     *
+     * @param from 移动前的位置
+     * @param to 移动后的位置
+     * @return 如果移动达到了这个粒度则返回true
+     */
+    public boolean accepts(Location from, Location to) {
+        return (changes(from, to) & mask) != 0;
+    }
+
+    int mask() {
+        return mask;
+    }
+
+    /**
+     * Computes the granularities a move reaches, as a mask of
+     * {@link #mask()} bits.
+     */
+    static int changes(Location from, Location to) {
+        int changes = ANY.mask;
+        if (from == null || to == null || from.getWorld() != to.getWorld()) {
+            return changes | ROTATION.mask | POSITION.mask | BLOCK.mask | CHUNK.mask;
+        }
+        if (from.getYaw() != to.getYaw() || from.getPitch() != to.getPitch()) {
+            changes |= ROTATION.mask;
+        }
+        if (from.getX() != to.getX() || from.getY() != to.getY() || from.getZ() != to.getZ()) {
+            changes |= POSITION.mask;
+        } else {
+            return changes;
+        }
+        int fromX = from.getBlockX(), fromZ = from.getBlockZ();
+        int toX = to.getBlockX(), toZ = to.getBlockZ();
+        if (fromX != toX || from.getBlockY() != to.getBlockY() || fromZ != toZ) {
+            changes |= BLOCK.mask;
+        }
+        if (fromX >> 4 != toX >> 4 || fromZ >> 4 != toZ >> 4) {
+            changes |= CHUNK.mask;
+        }
+        return changes;
+    }
+}
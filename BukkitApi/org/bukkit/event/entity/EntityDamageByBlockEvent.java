@@ -1,6 +1,7 @@
 package org.bukkit.event.entity;
 
 import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
 
 import com.google.common.base.Function;
 import org.bukkit.block.Block;
@@ -22,6 +23,11 @@ public class EntityDamageByBlockEvent extends EntityDamageEvent {
         this.damager = damager;
     }
 
+    public EntityDamageByBlockEvent(final Block damager, final Entity damagee, final DamageCause cause, final double[] modifiers, final DoubleUnaryOperator[] modifierFunctions) {
+        super(damagee, cause, modifiers, modifierFunctions);
+        this.damager = damager;
+    }
+
     /**
      * 返回试玩家受到伤害的Block类
      * 
@@ -1,6 +1,7 @@
 package org.bukkit.event.entity;
 
 import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
 
 import com.google.common.base.Function;
 import org.bukkit.entity.Entity;
@@ -21,6 +22,11 @@ public class EntityDamageByEntityEvent extends EntityDamageEvent {
         this.damager = damager;
     }
 
+    public EntityDamageByEntityEvent(final Entity damager, final Entity damagee, final DamageCause cause, final double[] modifiers, final DoubleUnaryOperator[] modifierFunctions) {
+        super(damagee, cause, modifiers, modifierFunctions);
+        this.damager = damager;
+    }
+
     /**
      * 返回造成这次伤害的实体
      * <p>
@@ -1,7 +1,7 @@
 package org.bukkit.event.entity;
 
-import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
 
 import org.apache.commons.lang.Validate;
 import org.bukkit.Material;
@@ -11,8 +11,6 @@ import org.bukkit.event.Cancellable;
 import org.bukkit.event.HandlerList;
 
 import com.google.common.base.Function;
-import com.google.common.base.Functions;
-import com.google.common.collect.ImmutableMap;
 
 /**
  * 储存伤害事件的数据
@@ -20,15 +18,22 @@ import com.google.common.collect.ImmutableMap;
 public class EntityDamageEvent extends EntityEvent implements Cancellable {
     private static final HandlerList handlers = new HandlerList();
     private static final DamageModifier[] MODIFIERS = DamageModifier.values();
-    private static final Function<? super Double, Double> ZERO = Functions.constant(-0.0);
-    private final Map<DamageModifier, Double> modifiers;
-    private final Map<DamageModifier, ? extends Function<? super Double, Double>> modifierFunctions;
-    private final Map<DamageModifier, Double> originals;
+    private static final DoubleUnaryOperator ZERO = damage -> -0.0;
+    // Indexed by DamageModifier ordinal, modifiers without a function are not applicable and stay 0
+    private final double[] modifiers;
+    private final DoubleUnaryOperator[] modifierFunctions;
+    private final double[] originals;
     private boolean cancelled;
     private final DamageCause cause;
 
     public EntityDamageEvent(final Entity damagee, final DamageCause cause, final double damage) {
-        this(damagee, cause, new EnumMap<DamageModifier, Double>(ImmutableMap.of(DamageModifier.BASE, damage)), new EnumMap<DamageModifier, Function<? super Double, Double>>(ImmutableMap.of(DamageModifier.BASE, ZERO)));
+        super(damagee);
+        this.cause = cause;
+        this.modifiers = new double[MODIFIERS.length];
+        this.modifierFunctions = new DoubleUnaryOperator[MODIFIERS.length];
+        this.modifiers[DamageModifier.BASE.ordinal()] = damage;
+        this.modifierFunctions[DamageModifier.BASE.ordinal()] = ZERO;
+        this.originals = modifiers.clone();
     }
 
     public EntityDamageEvent(final Entity damagee, final DamageCause cause, final Map<DamageModifier, Double> modifiers, final Map<DamageModifier, ? extends Function<? super Double, Double>> modifierFunctions) {
@@ -38,10 +43,49 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
         Validate.noNullElements(modifiers.values(), "Cannot have null modifier values");
         Validate.isTrue(modifiers.keySet().equals(modifierFunctions.keySet()), "Must have a modifier function for each DamageModifier");
         Validate.noNullElements(modifierFunctions.values(), "Cannot have null modifier function");
-        this.originals = new EnumMap<DamageModifier, Double>(modifiers);
         this.cause = cause;
-        this.modifiers = modifiers;
-        this.modifierFunctions = modifierFunctions;
+        this.modifiers = new double[MODIFIERS.length];
+        this.modifierFunctions = new DoubleUnaryOperator[MODIFIERS.length];
+        for (Map.Entry<DamageModifier, Double> modifier : modifiers.entrySet()) {
+            final Function<? super Double, Double> function = modifierFunctions.get(modifier.getKey());
+            this.modifiers[modifier.getKey().ordinal()] = modifier.getValue();
+            this.modifierFunctions[modifier.getKey().ordinal()] = damage -> function.apply(damage);
+        }
+        this.originals = this.modifiers.clone();
+    }
+
+    /**
+     * 使用以{@link DamageModifier#ordinal()}为下标的数组创建一个伤害事件,
+     * 避免为每次伤害创建Map和装箱的Double.
+     * <p>
+     * 原文:
+     * Creates a damage event from arrays indexed by
+     * {@link DamageModifier#ordinal()}, which avoids allocating maps and
+     * boxed doubles for every hit.
+     * <p>
+     * A modifier is applicable if it has a function. Both arrays are copied,
+     * so the caller may reuse them afterwards.
+     *
+     * @param damagee 受到伤害的实体
+     * @param cause 伤害原因
+     * @param modifiers 每个伤害类型的伤害值
+     * @param modifierFunctions 每个适用的伤害类型的计算函数,不适用的为null
+     * @throws IllegalArgumentException 如果数组长度不对或者缺少BASE的函数
+     */
+    public EntityDamageEvent(final Entity damagee, final DamageCause cause, final double[] modifiers, final DoubleUnaryOperator[] modifierFunctions) {
+        super(damagee);
+        Validate.isTrue(modifiers.length == MODIFIERS.length, "Must have a damage value for each DamageModifier");
+        Validate.isTrue(modifierFunctions.length == MODIFIERS.length, "Must have a function slot for each DamageModifier");
+        Validate.notNull(modifierFunctions[DamageModifier.BASE.ordinal()], "BASE DamageModifier missing");
+        this.cause = cause;
+        this.modifiers = modifiers.clone();
+        this.modifierFunctions = modifierFunctions.clone();
+        for (int i = 0; i < MODIFIERS.length; i++) {
+            if (this.modifierFunctions[i] == null) {
+                this.modifiers[i] = 0;
+            }
+        }
+        this.originals = this.modifiers.clone();
     }
 
     public boolean isCancelled() {
@@ -67,14 +111,10 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
      * @throws IllegalArgumentException if type is null
      */
     public double getOriginalDamage(DamageModifier type) throws IllegalArgumentException {
-        final Double damage = originals.get(type);
-        if (damage != null) {
-            return damage;
-        }
         if (type == null) {
             throw new IllegalArgumentException("Cannot have null DamageModifier");
         }
-        return 0;
+        return originals[type.ordinal()];
     }
 
     /**
@@ -98,10 +138,13 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
      *     #isApplicable(DamageModifier)} returns false
      */
     public void setDamage(DamageModifier type, double damage) throws IllegalArgumentException, UnsupportedOperationException {
-        if (!modifiers.containsKey(type)) {
-            throw type == null ? new IllegalArgumentException("Cannot have null DamageModifier") : new UnsupportedOperationException(type + " is not applicable to " + getEntity());
+        if (type == null) {
+            throw new IllegalArgumentException("Cannot have null DamageModifier");
+        }
+        if (modifierFunctions[type.ordinal()] == null) {
+            throw new UnsupportedOperationException(type + " is not applicable to " + getEntity());
         }
-        modifiers.put(type, damage);
+        modifiers[type.ordinal()] = damage;
     }
 
     /**
@@ -120,8 +163,7 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
      */
     public double getDamage(DamageModifier type) throws IllegalArgumentException {
         Validate.notNull(type, "Cannot have null DamageModifier");
-        final Double damage = modifiers.get(type);
-        return damage == null ? 0 : damage;
+        return modifiers[type.ordinal()];
     }
 
     /**
@@ -147,7 +189,7 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
      */
     public boolean isApplicable(DamageModifier type) throws IllegalArgumentException {
         Validate.notNull(type, "Cannot have null DamageModifier");
-        return modifiers.containsKey(type);
+        return modifierFunctions[type.ordinal()] != null;
     }
 
     /**
@@ -176,8 +218,8 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
      */
     public final double getFinalDamage() {
         double damage = 0;
-        for (DamageModifier modifier : MODIFIERS) {
-            damage += getDamage(modifier);
+        for (double modifier : modifiers) {
+            damage += modifier;
         }
         return damage;
     }
@@ -194,29 +236,29 @@ public class EntityDamageEvent extends EntityEvent implements Cancellable {
     public void setDamage(double damage) {
         // These have to happen in the same order as the server calculates them, keep the enum sorted
         double remaining = damage;
-        double oldRemaining = getDamage(DamageModifier.BASE);
-        for (DamageModifier modifier : MODIFIERS) {
-            if (!isApplicable(modifier)) {
+        double oldRemaining = modifiers[DamageModifier.BASE.ordinal()];
+        for (int i = 0; i < MODIFIERS.length; i++) {
+            DoubleUnaryOperator modifierFunction = modifierFunctions[i];
+            if (modifierFunction == null) {
                 continue;
             }
 
-            Function<? super Double, Double> modifierFunction = modifierFunctions.get(modifier);
-            double newVanilla = modifierFunction.apply(remaining);
-            double oldVanilla = modifierFunction.apply(oldRemaining);
+            double newVanilla = modifierFunction.applyAsDouble(remaining);
+            double oldVanilla = modifierFunction.applyAsDouble(oldRemaining);
             double difference = oldVanilla - newVanilla;
 
             // Don't allow value to cross zero, assume zero values should be negative
-            double old = getDamage(modifier);
+            double old = modifiers[i];
             if (old > 0) {
-                setDamage(modifier, Math.max(0, old - difference));
+                modifiers[i] = Math.max(0, old - difference);
             } else {
-                setDamage(modifier, Math.min(0, old - difference));
+                modifiers[i] = Math.min(0, old - difference);
             }
             remaining += newVanilla;
             oldRemaining += oldVanilla;
         }
 
-        setDamage(DamageModifier.BASE, damage);
+        modifiers[DamageModifier.BASE.ordinal()] = damage;
     }
 
     /**
@@ -0,0 +1,159 @@
+package org.bukkit.event.inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * Collects direct inventory transfers during a tick and reports them as one
+ * {@link InventoryMoveItemsEvent} per source and destination pair.
+ * <p>
+ * Meant for the server's hopper and dropper code, on the primary thread:
+ * <ol>
+ * <li>Skip the transfer if {@link #isBlocked(Inventory, Inventory)}</li>
+ * <li>Call {@link InventoryMoveItemEvent} only if
+ *     {@link #hasItemListeners()}</li>
+ * <li>After moving, {@link #record(Inventory, Inventory, ItemStack)} it</li>
+ * <li>Call {@link #tick()} once at the end of every tick</li>
+ * </ol>
+ * Recording is a no-op while nothing listens to the aggregated event, so
+ * servers with neither kind of listener pay only for two listener checks.
+ */
+public final class InventoryMoveAggregator {
+    private final PluginManager pluginManager;
+    private final Map<Pair, Transfers> pending = new LinkedHashMap<Pair, Transfers>();
+    private final Map<Pair, Long> blocked = new HashMap<Pair, Long>();
+    private long currentTick = 0;
+
+    public InventoryMoveAggregator(PluginManager pluginManager) {
+        Validate.notNull(pluginManager, "Plugin manager cannot be null");
+        this.pluginManager = pluginManager;
+    }
+
+    /**
+     * Checks whether any listener wants the per item
+     * {@link InventoryMoveItemEvent}. If not, the server does not need to
+     * construct it.
+     *
+     * @return true if the per item event has listeners
+     */
+    public static boolean hasItemListeners() {
+        return InventoryMoveItemEvent.getHandlerList().hasListeners();
+    }
+
+    /**
+     * Checks whether transfers from the source to the destination are
+     * blocked because an aggregated event for them was cancelled
+     *
+     * @param source Inventory the items would be taken from
+     * @param destination Inventory the items would be put into
+     * @return true if the transfer must not take place
+     */
+    public boolean isBlocked(Inventory source, Inventory destination) {
+        if (blocked.isEmpty()) {
+            return false;
+        }
+        Long until = blocked.get(new Pair(source, destination));
+        return until != null && until > currentTick;
+    }
+
+    /**
+     * Records a transfer that took place this tick
+     *
+     * @param source Inventory the items were taken from
+     * @param destination Inventory the items were put into
+     * @param item Items that were moved
+     */
+    public void record(Inventory source, Inventory destination, ItemStack item) {
+        Validate.notNull(item, "ItemStack cannot be null");
+        if (!InventoryMoveItemsEvent.getHandlerList().hasListeners()) {
+            return;
+        }
+
+        Pair pair = new Pair(source, destination);
+        Transfers transfers = pending.get(pair);
+        if (transfers == null) {
+            transfers = new Transfers();
+            pending.put(pair, transfers);
+        }
+        transfers.add(item);
+    }
+
+    /**
+     * Calls one {@link InventoryMoveItemsEvent} for each pair of inventories
+     * recorded this tick and starts the next tick
+     */
+    public void tick() {
+        currentTick++;
+
+        for (Iterator<Long> it = blocked.values().iterator(); it.hasNext();) {
+            if (it.next() <= currentTick) {
+                it.remove();
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Pair, Transfers>> entries = new ArrayList<Map.Entry<Pair, Transfers>>(pending.entrySet());
+        pending.clear();
+        for (Map.Entry<Pair, Transfers> entry : entries) {
+            Pair pair = entry.getKey();
+            Transfers transfers = entry.getValue();
+            InventoryMoveItemsEvent event = new InventoryMoveItemsEvent(pair.source, pair.destination, transfers.items, transfers.count);
+            pluginManager.callEvent(event);
+            if (event.isCancelled()) {
+                blocked.put(pair, currentTick + event.getBlockTicks());
+            }
+        }
+    }
+
+    private static final class Transfers {
+        private final List<ItemStack> items = new ArrayList<ItemStack>(2);
+        private int count;
+
+        private void add(ItemStack item) {
+            count++;
+            for (ItemStack merged : items) {
+                if (merged.isSimilar(item)) {
+                    merged.setAmount(merged.getAmount() + item.getAmount());
+                    return;
+                }
+            }
+            items.add(item.clone());
+        }
+    }
+
+    private static final class Pair {
+        private final Inventory source;
+        private final Inventory destination;
+
+        private Pair(Inventory source, Inventory destination) {
+            this.source = source;
+            this.destination = destination;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Pair)) {
+                return false;
+            }
+            Pair other = (Pair) obj;
+            return (source == null ? other.source == null : source.equals(other.source))
+                    && (destination == null ? other.destination == null : destination.equals(other.destination));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (source == null ? 0 : source.hashCode()) + (destination == null ? 0 : destination.hashCode());
+        }
+    }
+}
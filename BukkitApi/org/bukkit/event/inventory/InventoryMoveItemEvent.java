@@ -22,6 +22,11 @@ import org.bukkit.inventory.ItemStack;
  * into the destination inventory. If this is not possible and the ItemStack
  * has not been modified, the source inventory slot will be restored to its
  * former state. Otherwise any additional items will be discarded.
+ * <p>
+ * This event fires for every single transfer. Plugins that only need
+ * accounting should listen to the once per tick
+ * {@link InventoryMoveItemsEvent} instead, which lets the server skip this
+ * event entirely when nothing listens to it.
  */
 public class InventoryMoveItemEvent extends Event implements Cancellable {
     private static final HandlerList handlers = new HandlerList();
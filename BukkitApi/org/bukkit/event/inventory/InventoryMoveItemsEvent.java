@@ -0,0 +1,138 @@
+package org.bukkit.event.inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Called once per tick for every pair of inventories that items were moved
+ * between directly, such as by hoppers, summarising all transfers of that
+ * tick.
+ * <p>
+ * This is an aggregated alternative to {@link InventoryMoveItemEvent} for
+ * plugins that only need accounting. The transfers it reports have already
+ * taken place.
+ * <p>
+ * If this event is cancelled, all transfers from the source to the
+ * destination are blocked for the next {@link #getBlockTicks()} ticks.
+ * Transfers that were already reported are not undone.
+ *
+ * @see InventoryMoveAggregator
+ */
+public class InventoryMoveItemsEvent extends Event implements Cancellable {
+    private static final HandlerList handlers = new HandlerList();
+    private boolean cancelled;
+    private final Inventory sourceInventory;
+    private final Inventory destinationInventory;
+    private final List<ItemStack> items;
+    private final int transfers;
+    private int blockTicks = 8;
+
+    public InventoryMoveItemsEvent(final Inventory sourceInventory, final Inventory destinationInventory, final List<ItemStack> items, final int transfers) {
+        Validate.notNull(items, "Items cannot be null");
+        this.sourceInventory = sourceInventory;
+        this.destinationInventory = destinationInventory;
+        this.items = Collections.unmodifiableList(new ArrayList<ItemStack>(items));
+        this.transfers = transfers;
+    }
+
+    /**
+     * Gets the Inventory that the items were taken from
+     *
+     * @return Inventory that the items were taken from
+     */
+    public Inventory getSource() {
+        return sourceInventory;
+    }
+
+    /**
+     * Gets the Inventory that the items were put into
+     *
+     * @return Inventory that the items were put into
+     */
+    public Inventory getDestination() {
+        return destinationInventory;
+    }
+
+    /**
+     * Gets the items moved this tick, with similar items merged into one
+     * stack. Stacks may exceed their maximum stack size.
+     *
+     * @return Unmodifiable list of the moved items
+     */
+    public List<ItemStack> getItems() {
+        List<ItemStack> copy = new ArrayList<ItemStack>(items.size());
+        for (ItemStack item : items) {
+            copy.add(item.clone());
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Gets the total number of items moved this tick
+     *
+     * @return Number of items
+     */
+    public int getAmount() {
+        int amount = 0;
+        for (ItemStack item : items) {
+            amount += item.getAmount();
+        }
+        return amount;
+    }
+
+    /**
+     * Gets the number of individual transfers this event summarises
+     *
+     * @return Number of transfers
+     */
+    public int getTransferCount() {
+        return transfers;
+    }
+
+    /**
+     * Gets how many ticks transfers between the two inventories are blocked
+     * for if this event is cancelled. Defaults to 8, the hopper transfer
+     * cooldown, so a cancelled hopper misses at least its next transfer.
+     *
+     * @return Number of ticks
+     */
+    public int getBlockTicks() {
+        return blockTicks;
+    }
+
+    /**
+     * Sets how many ticks transfers between the two inventories are blocked
+     * for if this event is cancelled
+     *
+     * @param blockTicks Number of ticks, at least 1
+     */
+    public void setBlockTicks(int blockTicks) {
+        Validate.isTrue(blockTicks > 0, "Block ticks must be positive");
+        this.blockTicks = blockTicks;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancel) {
+        this.cancelled = cancel;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
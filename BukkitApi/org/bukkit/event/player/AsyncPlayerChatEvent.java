@@ -1,6 +1,8 @@
 package org.bukkit.event.player;
 
+import java.util.HashMap;
 import java.util.IllegalFormatException;
+import java.util.Map;
 import java.util.Set;
 
 import org.bukkit.entity.Player;
@@ -120,6 +122,8 @@ public class AsyncPlayerChatEvent extends PlayerEvent implements Cancellable {
      * 监听器应注意到如果事件传唤者提供了一个不可修改的Set集合的话修改这个列表可能会抛出{@link
      * UnsupportedOperationException}异常。
      * <p>
+     * 如果返回的是{@link ChatRecipients}, 应优先使用它的过滤方法而不是逐个移除玩家.
+     * <p>
      * 原文:Gets a set of recipients that this chat message will be displayed to.
      * <p>
      * The set returned is not guaranteed to be mutable and may auto-populate
@@ -129,6 +133,9 @@ public class AsyncPlayerChatEvent extends PlayerEvent implements Cancellable {
      * Listeners should be aware that modifying the list may throw {@link
      * UnsupportedOperationException} if the event caller provides an
      * unmodifiable set.
+     * <p>
+     * If the set is a {@link ChatRecipients}, prefer its filters over
+     * removing players one by one.
      *
      * @return 所有会看到这个消息的玩家
      */
@@ -136,6 +143,34 @@ public class AsyncPlayerChatEvent extends PlayerEvent implements Cancellable {
         return recipients;
     }
 
+    /**
+     * 把格式化后的消息发送给所有接收者.
+     * <p>
+     * 每种不同的格式只格式化一次消息, 而不是每个接收者格式化一次.
+     * 如果接收者集合是{@link ChatRecipients}, 会使用它为各个接收者指定的格式,
+     * 过滤条件也在此时才应用.
+     * <p>
+     * 原文:Sends the formatted message to every recipient.
+     * <p>
+     * The message is formatted once per distinct format rather than once per
+     * recipient. If the recipients are {@link ChatRecipients}, the formats it
+     * assigns to recipients are used, and its filters are only applied now.
+     */
+    public void deliver() {
+        String displayName = player.getDisplayName();
+        ChatRecipients view = recipients instanceof ChatRecipients ? (ChatRecipients) recipients : null;
+        Map<String, String> formatted = new HashMap<String, String>(2);
+        for (Player recipient : recipients) {
+            String recipientFormat = view == null ? format : view.getFormat(recipient, format);
+            String text = formatted.get(recipientFormat);
+            if (text == null) {
+                text = String.format(recipientFormat, displayName, message);
+                formatted.put(recipientFormat, text);
+            }
+            recipient.sendMessage(text);
+        }
+    }
+
     public boolean isCancelled() {
         return cancel;
     }
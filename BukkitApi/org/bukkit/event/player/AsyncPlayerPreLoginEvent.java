@@ -1,9 +1,21 @@
 package org.bukkit.event.player;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
+import org.apache.commons.lang.Validate;
+import org.bukkit.event.DispatchAware;
 import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 
 /**
@@ -11,13 +23,19 @@ import org.bukkit.event.HandlerList;
  * <p>
  * 这个事件是异步的，不在主线程上执行.
  */
-public class AsyncPlayerPreLoginEvent extends Event {
+public class AsyncPlayerPreLoginEvent extends Event implements DispatchAware {
     private static final HandlerList handlers = new HandlerList();
     private Result result;
     private String message;
     private final String name;
     private final InetAddress ipAddress;
     private final UUID uniqueId;
+    private final List<Deferred> deferred = new ArrayList<Deferred>(0);
+    private final List<Throwable> deferredFailures = new ArrayList<Throwable>(0);
+    private long deferTimeout = -1;
+    private EventPriority priority;
+    private EventPriority resultPriority;
+    private EventPriority messagePriority;
 
     @Deprecated
     public AsyncPlayerPreLoginEvent(final String name, final InetAddress ipAddress) {
@@ -67,6 +85,7 @@ public class AsyncPlayerPreLoginEvent extends Event {
      */
     public void setLoginResult(final Result result) {
         this.result = result;
+        this.resultPriority = priority;
     }
 
     /**
@@ -81,6 +100,7 @@ public class AsyncPlayerPreLoginEvent extends Event {
     @Deprecated
     public void setResult(final PlayerPreLoginEvent.Result result) {
         this.result = result == null ? null : Result.valueOf(result.name());
+        this.resultPriority = priority;
     }
 
     /**
@@ -104,6 +124,7 @@ public class AsyncPlayerPreLoginEvent extends Event {
      */
     public void setKickMessage(final String message) {
         this.message = message;
+        this.messagePriority = priority;
     }
 
     /**
@@ -114,6 +135,8 @@ public class AsyncPlayerPreLoginEvent extends Event {
     public void allow() {
         result = Result.ALLOWED;
         message = "";
+        resultPriority = priority;
+        messagePriority = priority;
     }
 
     /**
@@ -127,6 +150,8 @@ public class AsyncPlayerPreLoginEvent extends Event {
     public void disallow(final Result result, final String message) {
         this.result = result;
         this.message = message;
+        this.resultPriority = priority;
+        this.messagePriority = priority;
     }
 
     /**
@@ -143,6 +168,8 @@ public class AsyncPlayerPreLoginEvent extends Event {
     public void disallow(final PlayerPreLoginEvent.Result result, final String message) {
         this.result = result == null ? null : Result.valueOf(result.name());
         this.message = message;
+        this.resultPriority = priority;
+        this.messagePriority = priority;
     }
 
     /**
@@ -178,6 +205,166 @@ public class AsyncPlayerPreLoginEvent extends Event {
         return uniqueId;
     }
 
+    /**
+     * 推迟一个监听器的结果.
+     * <p>
+     * 监听器可以启动一个异步操作(例如数据库查询)并立即返回, 而不是在监听器中等待它完成,
+     * 这样同一次登录的多个互不依赖的监听器可以并发执行.
+     * 在调用{@link EventPriority#MONITOR}监听器之前, 事件会等待所有推迟的结果,
+     * 并按照推迟它们的监听器的优先级依次应用, 所以MONITOR监听器能看到最终结果.
+     * 推迟的结果和同步修改一样按照优先级生效: 如果更高优先级的监听器已经修改了登录状态或踢出消息,
+     * 推迟的结果对同一项的修改会被撤销; 优先级相同时推迟的结果生效. 失败或超时的结果会被跳过并记录.
+     * <p>
+     * 只有通过{@link PreLoginPipeline}处理的事件才会应用推迟的结果, 所以其他情况下这个方法会抛出异常,
+     * MONITOR监听器也不能推迟结果. 监听器可以先调用{@link #isDeferrable()}检查,
+     * 不能推迟时改为等待操作完成. 这个方法必须在监听器中调用.
+     * <p>
+     * 原文:Defers the result of a listener.
+     * <p>
+     * Instead of waiting inside the listener, a listener can start an
+     * asynchronous operation such as a database lookup and return at once,
+     * so independent listeners for the same login run concurrently. Before
+     * the {@link EventPriority#MONITOR} listeners are called, the event waits
+     * for all deferred results and applies them in the priority order of the
+     * listeners that deferred them, so MONITOR listeners see the final
+     * outcome. Deferred results take effect by priority just like
+     * synchronous changes: if a listener of a higher priority already changed
+     * the login result or kick message, a deferred change to the same value
+     * is reverted; on equal priority the deferred result wins. Results that
+     * fail or time out are skipped and logged.
+     * <p>
+     * Deferred results are only applied when the event is processed by a
+     * {@link PreLoginPipeline}, so this method throws otherwise, and MONITOR
+     * listeners cannot defer results either. Listeners can check
+     * {@link #isDeferrable()} first and wait for the operation when it
+     * returns false. This method must be called from within the listener.
+     *
+     * @param result 完成时返回要应用到事件上的操作, 例如调用{@link #disallow(Result, String)}
+     * @throws IllegalStateException 如果不能推迟结果
+     * @see PreLoginPipeline
+     */
+    public void defer(CompletionStage<? extends Consumer<? super AsyncPlayerPreLoginEvent>> result) {
+        Validate.notNull(result, "Result cannot be null");
+        if (deferTimeout < 0) {
+            throw new IllegalStateException("Results can only be deferred while the event is processed by a PreLoginPipeline");
+        }
+        if (priority == EventPriority.MONITOR) {
+            throw new IllegalStateException("MONITOR listeners cannot defer results");
+        }
+        synchronized (deferred) {
+            deferred.add(new Deferred(priority, result.toCompletableFuture()));
+        }
+    }
+
+    /**
+     * 检查监听器现在是否可以调用{@link #defer(CompletionStage)}.
+     * <p>
+     * 原文:Checks whether a listener can call {@link #defer(CompletionStage)}
+     * right now.
+     *
+     * @return 事件由PreLoginPipeline处理并且调用者不是MONITOR监听器时为true
+     */
+    public boolean isDeferrable() {
+        return deferTimeout >= 0 && priority != EventPriority.MONITOR;
+    }
+
+    /**
+     * 等待所有还没有应用的推迟的结果, 并按照优先级应用它们.
+     * <p>
+     * 原文:Waits for the deferred results that were not applied yet and
+     * applies them in priority order.
+     *
+     * @param timeout 等待所有结果的最长时间
+     * @param unit 时间单位
+     * @return 到目前为止失败或没有及时完成而被跳过的结果的异常, 包括在MONITOR监听器之前被跳过的
+     */
+    public List<Throwable> applyDeferred(long timeout, TimeUnit unit) {
+        applyPending(unit.toNanos(timeout));
+        List<Throwable> failures = new ArrayList<Throwable>(deferredFailures);
+        deferredFailures.clear();
+        return failures;
+    }
+
+    /**
+     * 设置推迟的结果的等待时间, 由{@link PreLoginPipeline}在调用事件之前设置.
+     *
+     * @param timeout 等待时间(纳秒), 为负数时不能推迟结果
+     */
+    void setDeferTimeout(long timeout) {
+        this.deferTimeout = timeout;
+    }
+
+    @Override
+    public void onPriority(EventPriority priority) {
+        this.priority = priority;
+        if (priority == EventPriority.MONITOR && deferTimeout >= 0) {
+            applyPending(deferTimeout);
+        }
+    }
+
+    private void applyPending(long timeout) {
+        List<Deferred> pending;
+        synchronized (deferred) {
+            pending = new ArrayList<Deferred>(deferred);
+            deferred.clear();
+        }
+        // Stable, so results of one priority keep the order they were deferred in
+        Collections.sort(pending, (a, b) -> Integer.compare(a.priority.getSlot(), b.priority.getSlot()));
+
+        long deadline = System.nanoTime() + timeout;
+        for (Deferred entry : pending) {
+            Consumer<? super AsyncPlayerPreLoginEvent> action;
+            try {
+                action = entry.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException ex) {
+                deferredFailures.add(ex.getCause());
+                continue;
+            } catch (TimeoutException ex) {
+                entry.result.cancel(false);
+                deferredFailures.add(ex);
+                continue;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                deferredFailures.add(ex);
+                break;
+            } catch (RuntimeException ex) {
+                deferredFailures.add(ex);
+                continue;
+            }
+            if (action == null) {
+                continue;
+            }
+
+            Result previousResult = result;
+            String previousMessage = message;
+            EventPriority previousResultPriority = resultPriority;
+            EventPriority previousMessagePriority = messagePriority;
+            EventPriority current = priority;
+            priority = entry.priority;
+            try {
+                action.accept(this);
+            } catch (RuntimeException ex) {
+                deferredFailures.add(ex);
+            } finally {
+                priority = current;
+            }
+
+            // A higher priority listener already decided these values
+            if (isHigher(previousResultPriority, entry.priority)) {
+                result = previousResult;
+                resultPriority = previousResultPriority;
+            }
+            if (isHigher(previousMessagePriority, entry.priority)) {
+                message = previousMessage;
+                messagePriority = previousMessagePriority;
+            }
+        }
+    }
+
+    private static boolean isHigher(EventPriority priority, EventPriority than) {
+        return priority != null && than != null && priority.getSlot() > than.getSlot();
+    }
+
     @Override
     public HandlerList getHandlers() {
         return handlers;
@@ -187,6 +374,19 @@ public class AsyncPlayerPreLoginEvent extends Event {
         return handlers;
     }
 
+    /**
+     * A deferred result and the priority of the listener that deferred it.
+     */
+    private static final class Deferred {
+        private final EventPriority priority;
+        private final CompletableFuture<? extends Consumer<? super AsyncPlayerPreLoginEvent>> result;
+
+        private Deferred(EventPriority priority, CompletableFuture<? extends Consumer<? super AsyncPlayerPreLoginEvent>> result) {
+            this.priority = priority;
+            this.result = result;
+        }
+    }
+
     /**
      * 基本的踢出理由，为了插件间的通信
      */
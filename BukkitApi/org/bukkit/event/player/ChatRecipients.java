@@ -0,0 +1,311 @@
+package org.bukkit.event.player;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IllegalFormatException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+/**
+ * 聊天消息接收者的惰性视图.
+ * <p>
+ * 在被修改之前,这个集合不会复制在线玩家列表,而是在读取时直接遍历来源集合,
+ * 并应用通过{@link #filter(Predicate)}等方法添加的过滤条件.
+ * 频道插件可以用过滤条件代替逐个移除玩家.
+ * 只有调用{@link #add(Object)}或{@link #remove(Object)}等修改方法时才会复制出一个真正的集合.
+ * <p>
+ * 还可以用{@link #format(Predicate, String)}为部分接收者指定不同的消息格式,
+ * {@link AsyncPlayerChatEvent#deliver()}会为每种不同的格式只格式化一次消息.
+ * <p>
+ * 原文:A lazy view of the recipients of a chat message.
+ * <p>
+ * Until it is modified, this set does not copy the online players. Reads go
+ * straight through to the source collection and apply the filters added
+ * with {@link #filter(Predicate)} and friends, so channel plugins can
+ * filter instead of removing players one by one. Only modifying methods
+ * such as {@link #add(Object)} or {@link #remove(Object)} copy it into a
+ * real set.
+ * <p>
+ * Some recipients can be given a different format with
+ * {@link #format(Predicate, String)};
+ * {@link AsyncPlayerChatEvent#deliver()} formats the message only once per
+ * distinct format.
+ */
+public final class ChatRecipients extends AbstractSet<Player> {
+    private final Supplier<? extends Collection<? extends Player>> source;
+    private final List<Predicate<? super Player>> filters = new ArrayList<Predicate<? super Player>>(2);
+    private final List<Predicate<? super Player>> formatRecipients = new ArrayList<Predicate<? super Player>>(0);
+    private final List<String> formats = new ArrayList<String>(0);
+    private Set<Player> materialized = null;
+
+    /**
+     * 创建一个接收者视图.
+     * <p>
+     * 原文:Creates a recipient view.
+     *
+     * @param source 提供所有可能的接收者,例如在线玩家.返回的集合必须可以在调用事件的线程上安全地遍历
+     */
+    public ChatRecipients(Supplier<? extends Collection<? extends Player>> source) {
+        Validate.notNull(source, "Source cannot be null");
+        this.source = source;
+    }
+
+    /**
+     * 只保留满足给定条件的接收者.
+     * <p>
+     * 原文:Keeps only the recipients that pass the given filter.
+     *
+     * @param filter 过滤条件
+     * @return 这个视图
+     */
+    public ChatRecipients filter(Predicate<? super Player> filter) {
+        Validate.notNull(filter, "Filter cannot be null");
+        if (materialized != null) {
+            materialized.removeIf(filter.negate());
+        } else {
+            filters.add(filter);
+        }
+        return this;
+    }
+
+    /**
+     * 只保留在给定世界中的接收者.
+     * <p>
+     * 原文:Keeps only the recipients in the given world.
+     *
+     * @param world 世界
+     * @return 这个视图
+     */
+    public ChatRecipients inWorld(final World world) {
+        Validate.notNull(world, "World cannot be null");
+        return filter(player -> world.equals(player.getWorld()));
+    }
+
+    /**
+     * 只保留拥有给定权限的接收者.
+     * <p>
+     * 原文:Keeps only the recipients that have the given permission.
+     *
+     * @param permission 权限名称
+     * @return 这个视图
+     */
+    public ChatRecipients withPermission(final String permission) {
+        Validate.notNull(permission, "Permission cannot be null");
+        return filter(player -> player.hasPermission(permission));
+    }
+
+    /**
+     * 只保留与给定位置在同一世界且距离不超过给定半径的接收者.
+     * <p>
+     * 原文:Keeps only the recipients in the same world as the given location
+     * and within the given radius of it.
+     *
+     * @param center 中心位置
+     * @param radius 半径
+     * @return 这个视图
+     */
+    public ChatRecipients near(Location center, double radius) {
+        Validate.notNull(center, "Center cannot be null");
+        Validate.isTrue(radius >= 0, "Radius cannot be negative");
+        final Location origin = center.clone();
+        final double radiusSquared = radius * radius;
+        return filter(player -> {
+            Location location = player.getLocation();
+            return location.getWorld() != null && location.getWorld().equals(origin.getWorld()) && location.distanceSquared(origin) <= radiusSquared;
+        });
+    }
+
+    /**
+     * 为满足给定条件的接收者使用不同的消息格式.先添加的格式优先.
+     * <p>
+     * 原文:Uses a different format for the recipients that pass the given
+     * filter. Formats added first take precedence.
+     *
+     * @param recipients 使用这个格式的接收者
+     * @param format 格式,参数与{@link AsyncPlayerChatEvent#getFormat()}相同
+     * @return 这个视图
+     * @throws IllegalFormatException 底层API抛出错误
+     * @see AsyncPlayerChatEvent#setFormat(String)
+     */
+    public ChatRecipients format(Predicate<? super Player> recipients, String format) throws IllegalFormatException {
+        Validate.notNull(recipients, "Recipients cannot be null");
+        Validate.notNull(format, "Format cannot be null");
+        // Checked the same way as AsyncPlayerChatEvent.setFormat, so a bad
+        // format fails here rather than in deliver()
+        try {
+            String.format(format, "", "");
+        } catch (RuntimeException ex) {
+            ex.fillInStackTrace();
+            throw ex;
+        }
+        formatRecipients.add(recipients);
+        formats.add(format);
+        return this;
+    }
+
+    /**
+     * 获取给定接收者使用的消息格式.
+     * <p>
+     * 原文:Gets the format used for the given recipient.
+     *
+     * @param recipient 接收者
+     * @param defaultFormat 没有指定格式时使用的格式
+     * @return 格式
+     */
+    public String getFormat(Player recipient, String defaultFormat) {
+        for (int i = 0; i < formats.size(); i++) {
+            if (formatRecipients.get(i).test(recipient)) {
+                return formats.get(i);
+            }
+        }
+        return defaultFormat;
+    }
+
+    /**
+     * 检查这个视图是否已经复制成了一个真正的集合.
+     * <p>
+     * 原文:Checks whether this view has been copied into a real set.
+     *
+     * @return 如果已经复制则返回true
+     */
+    public boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    @Override
+    public Iterator<Player> iterator() {
+        if (materialized != null) {
+            return materialized.iterator();
+        }
+        return new FilteredIterator(source.get().iterator(), new ArrayList<Predicate<? super Player>>(filters));
+    }
+
+    @Override
+    public int size() {
+        if (materialized != null) {
+            return materialized.size();
+        }
+        int size = 0;
+        for (Player player : source.get()) {
+            if (accepts(player)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return materialized != null ? materialized.isEmpty() : !iterator().hasNext();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (materialized != null) {
+            return materialized.contains(o);
+        }
+        return o instanceof Player && source.get().contains(o) && accepts((Player) o);
+    }
+
+    @Override
+    public boolean add(Player player) {
+        return materialize().add(player);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return materialize().remove(o);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Player> filter) {
+        return materialize().removeIf(filter);
+    }
+
+    @Override
+    public void clear() {
+        filters.clear();
+        materialized = new LinkedHashSet<Player>();
+    }
+
+    private boolean accepts(Player player) {
+        return accepts(filters, player);
+    }
+
+    private static boolean accepts(List<Predicate<? super Player>> filters, Player player) {
+        for (Predicate<? super Player> filter : filters) {
+            if (!filter.test(player)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<Player> materialize() {
+        if (materialized == null) {
+            Set<Player> players = new LinkedHashSet<Player>();
+            for (Player player : source.get()) {
+                if (accepts(player)) {
+                    players.add(player);
+                }
+            }
+            materialized = players;
+            filters.clear();
+        }
+        return materialized;
+    }
+
+    /**
+     * Iterates the source, skipping filtered players. Removing through it
+     * copies the view, so the filters are captured up front.
+     */
+    private final class FilteredIterator implements Iterator<Player> {
+        private final Iterator<? extends Player> players;
+        private final List<Predicate<? super Player>> filters;
+        private Player next;
+        private Player last;
+
+        private FilteredIterator(Iterator<? extends Player> players, List<Predicate<? super Player>> filters) {
+            this.players = players;
+            this.filters = filters;
+        }
+
+        public boolean hasNext() {
+            while (next == null && players.hasNext()) {
+                Player player = players.next();
+                if (accepts(filters, player)) {
+                    next = player;
+                }
+            }
+            return next != null;
+        }
+
+        public Player next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = null;
+            return last;
+        }
+
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            ChatRecipients.this.remove(last);
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.bukkit.event.player;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * 以有限的并发数处理{@link AsyncPlayerPreLoginEvent}.
+ * <p>
+ * 每次登录在一个工作线程上调用事件, 并在调用MONITOR监听器之前等待并按优先级应用监听器通过
+ * {@link AsyncPlayerPreLoginEvent#defer(java.util.concurrent.CompletionStage)}推迟的结果.
+ * 同时处理的登录数量不会超过并发上限, 其余的登录排队等待, 并统计排队的指标.
+ * <p>
+ * 原文:Processes {@link AsyncPlayerPreLoginEvent}s with bounded concurrency.
+ * <p>
+ * Each login calls the event on a worker thread. Before the MONITOR
+ * listeners are called, it waits for the results listeners deferred through
+ * {@link AsyncPlayerPreLoginEvent#defer(java.util.concurrent.CompletionStage)}
+ * and applies them in priority order. No more logins than the concurrency limit are
+ * processed at once; the others wait in a queue, which is measured.
+ */
+public final class PreLoginPipeline {
+    private final PluginManager pluginManager;
+    private final Logger logger;
+    private final long timeout;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalWait = new LongAdder();
+    private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 创建一个处理流水线.
+     * <p>
+     * 原文:Creates a pipeline.
+     *
+     * @param pluginManager 用来调用事件的插件管理器
+     * @param concurrency 同时处理的登录的最大数量
+     * @param timeout 每次登录等待推迟的结果的最长时间
+     * @param unit 时间单位
+     * @param logger 记录失败的结果的日志记录器
+     */
+    public PreLoginPipeline(PluginManager pluginManager, int concurrency, long timeout, TimeUnit unit, Logger logger) {
+        Validate.notNull(pluginManager, "Plugin manager cannot be null");
+        Validate.isTrue(concurrency > 0, "Concurrency must be positive");
+        Validate.isTrue(timeout > 0, "Timeout must be positive");
+        Validate.notNull(logger, "Logger cannot be null");
+
+        this.pluginManager = pluginManager;
+        this.logger = logger;
+        this.timeout = unit.toNanos(timeout);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threads = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Pre-Login #" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交一次登录.
+     * <p>
+     * 原文:Submits a login.
+     *
+     * @param event 登录事件
+     * @return 在事件调用完毕且所有推迟的结果都已应用后完成,
+     *     如果流水线已经停止则以{@link RejectedExecutionException}异常完成
+     */
+    public CompletableFuture<AsyncPlayerPreLoginEvent> submit(final AsyncPlayerPreLoginEvent event) {
+        Validate.notNull(event, "Event cannot be null");
+        final CompletableFuture<AsyncPlayerPreLoginEvent> future = new CompletableFuture<AsyncPlayerPreLoginEvent>();
+        final long submitted = System.nanoTime();
+        queued.incrementAndGet();
+        try {
+            execute(event, future, submitted);
+        } catch (RejectedExecutionException ex) {
+            queued.decrementAndGet();
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private void execute(final AsyncPlayerPreLoginEvent event, final CompletableFuture<AsyncPlayerPreLoginEvent> future, final long submitted) {
+        executor.execute(() -> {
+            queued.decrementAndGet();
+            long wait = System.nanoTime() - submitted;
+            totalWait.add(wait);
+            maxWait.accumulate(wait);
+            Throwable failure = null;
+            try {
+                process(event);
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+            completed.increment();
+            if (failure == null) {
+                future.complete(event);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        });
+    }
+
+    private void process(AsyncPlayerPreLoginEvent event) {
+        List<Throwable> failures;
+        event.setDeferTimeout(timeout);
+        try {
+            pluginManager.callEvent(event);
+            // Results are applied before the MONITOR listeners; this applies
+            // them when there are none
+            failures = event.applyDeferred(timeout, TimeUnit.NANOSECONDS);
+        } finally {
+            event.setDeferTimeout(-1);
+        }
+        for (Throwable failure : failures) {
+            if (failure instanceof TimeoutException) {
+                logger.log(Level.WARNING, "A deferred pre-login result for " + event.getName() + " did not complete within " + TimeUnit.NANOSECONDS.toMillis(timeout) + "ms and was skipped");
+            } else {
+                logger.log(Level.SEVERE, "A deferred pre-login result for " + event.getName() + " failed and was skipped", failure);
+            }
+        }
+    }
+
+    /**
+     * 设置同时处理的登录的最大数量.
+     * <p>
+     * 原文:Sets the maximum number of logins processed at once.
+     *
+     * @param concurrency 并发上限
+     */
+    public void setConcurrency(int concurrency) {
+        Validate.isTrue(concurrency > 0, "Concurrency must be positive");
+        if (concurrency > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(concurrency);
+            executor.setCorePoolSize(concurrency);
+        } else {
+            executor.setCorePoolSize(concurrency);
+            executor.setMaximumPoolSize(concurrency);
+        }
+    }
+
+    /**
+     * 获取同时处理的登录的最大数量.
+     * <p>
+     * 原文:Gets the maximum number of logins processed at once.
+     *
+     * @return 并发上限
+     */
+    public int getConcurrency() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * 获取正在排队等待处理的登录数量.
+     * <p>
+     * 原文:Gets the number of logins waiting to be processed.
+     *
+     * @return 排队的登录数量
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * 获取正在处理的登录数量.
+     * <p>
+     * 原文:Gets the number of logins being processed.
+     *
+     * @return 正在处理的登录数量
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 获取已经处理完毕的登录数量.
+     * <p>
+     * 原文:Gets the number of logins that have been processed.
+     *
+     * @return 处理完毕的登录数量
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * 获取登录开始处理前的平均排队时间.
+     * <p>
+     * 原文:Gets the average time logins waited before being processed.
+     *
+     * @param unit 时间单位
+     * @return 平均排队时间
+     */
+    public long getAverageQueueTime(TimeUnit unit) {
+        long count = completed.sum();
+        return count == 0 ? 0 : unit.convert(totalWait.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取登录开始处理前的最长排队时间.
+     * <p>
+     * 原文:Gets the longest time a login waited before being processed.
+     *
+     * @param unit 时间单位
+     * @return 最长排队时间
+     */
+    public long getMaxQueueTime(TimeUnit unit) {
+        return unit.convert(maxWait.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 停止接受新的登录, 已提交的登录仍会处理完毕.
+     * <p>
+     * 原文:Stops accepting logins; logins already submitted are still
+     * processed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
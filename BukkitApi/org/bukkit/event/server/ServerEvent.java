@@ -8,4 +8,11 @@ import org.bukkit.event.Event;
  * 原文:Miscellaneous server events
  */
 public abstract class ServerEvent extends Event {
+    public ServerEvent() {
+        super();
+    }
+
+    public ServerEvent(boolean isAsync) {
+        super(isAsync);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package org.bukkit.event.server;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.util.CachedServerIcon;
+
+/**
+ * 服务器列表信息的缓存.
+ * <p>
+ * 缓存的信息在有效期内直接发送给请求者, 不会遍历在线玩家, 也不会调用{@link ServerListRefreshEvent}.
+ * 过期或调用{@link #invalidate()}后, 下一次请求会刷新缓存. 刷新时其他请求者会继续收到旧的信息,
+ * 所以同一时间只有一个线程在刷新. 这个类是线程安全的.
+ * <p>
+ * 缓存调用的{@link ServerListRefreshEvent}和{@link ServerListPingEvent}都是异步事件,
+ * 所以{@link #ping(InetAddress)}必须在网络线程上调用, 而不是在服务器主线程上.
+ * <p>
+ * {@link ServerListPingEvent}的监听器仍然会在每次请求时被调用, 但事件中的信息来自缓存.
+ * 没有这些监听器时, 请求不需要构造任何事件.
+ * <p>
+ * 注册为监听器后, 玩家加入或退出时缓存会自动失效.
+ * 修改了每日信息或服务器图标的插件应该调用{@link #invalidate()}.
+ * <p>
+ * 原文：A cache of the server list response.
+ * <p>
+ * While fresh, the cached response is sent to clients straight away,
+ * without walking the online players or calling
+ * {@link ServerListRefreshEvent}. Once it expires or {@link #invalidate()} is
+ * called, the next ping refreshes it. Other clients keep receiving the old
+ * response during the refresh, so only one thread refreshes at a time. This
+ * class is thread-safe.
+ * <p>
+ * The {@link ServerListRefreshEvent} and {@link ServerListPingEvent} called
+ * by the cache are asynchronous, so {@link #ping(InetAddress)} must be
+ * called on a network thread rather than the main server thread.
+ * <p>
+ * Listeners of {@link ServerListPingEvent} are still called on every ping,
+ * with the cached response in the event. Without such listeners, a ping
+ * does not construct any event.
+ * <p>
+ * When registered as a listener, the cache is invalidated whenever a player
+ * joins or quits. Plugins that change the MOTD or server icon should call
+ * {@link #invalidate()}.
+ */
+public final class ServerListPingCache implements Listener {
+    private final PluginManager pluginManager;
+    private final Function<? super InetAddress, ? extends ServerListRefreshEvent> source;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile long ttl;
+    private volatile boolean invalid = false;
+    private volatile Response current = null;
+
+    /**
+     * 创建一个从服务器读取信息的缓存.
+     * <p>
+     * 原文：Creates a cache reading the response from the server.
+     *
+     * @param server 服务器
+     * @param ttl 缓存的有效期
+     * @param unit 时间单位
+     */
+    public ServerListPingCache(final Server server, long ttl, TimeUnit unit) {
+        this(server.getPluginManager(), address -> new ServerListRefreshEvent(address, server.getMotd(), server.getOnlinePlayers(), server.getMaxPlayers(), server.getServerIcon()), ttl, unit);
+    }
+
+    /**
+     * 创建一个缓存.
+     * <p>
+     * 原文：Creates a cache.
+     *
+     * @param pluginManager 用来调用事件的插件管理器
+     * @param source 根据触发刷新的请求者的地址创建刷新事件, 事件中包含服务器的当前信息
+     * @param ttl 缓存的有效期
+     * @param unit 时间单位
+     */
+    public ServerListPingCache(PluginManager pluginManager, Function<? super InetAddress, ? extends ServerListRefreshEvent> source, long ttl, TimeUnit unit) {
+        Validate.notNull(pluginManager, "Plugin manager cannot be null");
+        Validate.notNull(source, "Source cannot be null");
+        this.pluginManager = pluginManager;
+        this.source = source;
+        setTimeToLive(ttl, unit);
+    }
+
+    /**
+     * 设置缓存的有效期.
+     * <p>
+     * 原文：Sets how long the cached response stays fresh.
+     *
+     * @param ttl 有效期, 为0时每次请求都会刷新
+     * @param unit 时间单位
+     */
+    public void setTimeToLive(long ttl, TimeUnit unit) {
+        Validate.isTrue(ttl >= 0, "Time to live cannot be negative");
+        Validate.notNull(unit, "Unit cannot be null");
+        this.ttl = unit.toNanos(ttl);
+    }
+
+    /**
+     * 使缓存失效, 下一次请求会刷新缓存.
+     * <p>
+     * 原文：Invalidates the cache, so the next ping refreshes it.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * 获取发送给请求者的信息. 这个方法不能在服务器主线程上调用.
+     * <p>
+     * 原文：Gets the response to send to a client. This method must not be
+     * called on the main server thread.
+     *
+     * @param address 请求者的地址
+     * @return 服务器列表信息
+     */
+    public Response ping(InetAddress address) {
+        Response response = current;
+        if (response == null || isStale(response)) {
+            response = refresh(address, response);
+        }
+        if (!ServerListPingEvent.getHandlerList().hasListeners()) {
+            return response;
+        }
+
+        CachedPingEvent event = new CachedPingEvent(address, response);
+        pluginManager.callEvent(event);
+        return new Response(event, event.players, event.icon, response.created);
+    }
+
+    private boolean isStale(Response response) {
+        return invalid || System.nanoTime() - response.created >= ttl;
+    }
+
+    private Response refresh(InetAddress address, Response stale) {
+        if (stale == null) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return stale;
+        }
+        try {
+            Response response = current;
+            if (response != null && !isStale(response)) {
+                return response;
+            }
+
+            invalid = false;
+            long created = System.nanoTime();
+            ServerListRefreshEvent event = source.apply(address);
+            pluginManager.callEvent(event);
+            List<Player> players = new ArrayList<Player>();
+            for (Player player : event) {
+                players.add(player);
+            }
+            response = new Response(event, players, event.getServerIcon(), created);
+            current = response;
+            return response;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        invalidate();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate();
+    }
+
+    /**
+     * 一份不可变的服务器列表信息.
+     * <p>
+     * 原文：An immutable server list response.
+     */
+    public static final class Response {
+        private final String motd;
+        private final int numPlayers;
+        private final int maxPlayers;
+        private final List<Player> players;
+        private final CachedServerIcon icon;
+        private final long created;
+
+        private Response(ServerListPingEvent event, List<Player> players, CachedServerIcon icon, long created) {
+            this.motd = event.getMotd();
+            this.numPlayers = players.size();
+            this.maxPlayers = event.getMaxPlayers();
+            this.players = Collections.unmodifiableList(new ArrayList<Player>(players));
+            this.icon = icon;
+            this.created = created;
+        }
+
+        /**
+         * 获取每日信息.
+         * <p>
+         * 原文：Gets the message of the day.
+         *
+         * @return 每日信息
+         */
+        public String getMotd() {
+            return motd;
+        }
+
+        /**
+         * 获取玩家数量.
+         * <p>
+         * 原文：Gets the number of players.
+         *
+         * @return 玩家数量
+         */
+        public int getNumPlayers() {
+            return numPlayers;
+        }
+
+        /**
+         * 获取最大玩家数量.
+         * <p>
+         * 原文：Gets the maximum number of players.
+         *
+         * @return 最大玩家数量
+         */
+        public int getMaxPlayers() {
+            return maxPlayers;
+        }
+
+        /**
+         * 获取在玩家列表中显示的玩家.
+         * <p>
+         * 原文：Gets the players displayed on the player list.
+         *
+         * @return 不可修改的玩家列表
+         */
+        public List<Player> getPlayers() {
+            return players;
+        }
+
+        /**
+         * 获取服务器图标.
+         * <p>
+         * 原文：Gets the server-icon.
+         *
+         * @return 服务器图标, 可能为null
+         */
+        public CachedServerIcon getServerIcon() {
+            return icon;
+        }
+    }
+
+    /**
+     * The per ping event, filled from a cached response.
+     */
+    private static final class CachedPingEvent extends ServerListPingEvent {
+        private final List<Player> players;
+        private CachedServerIcon icon;
+
+        private CachedPingEvent(InetAddress address, Response response) {
+            super(address, response.motd, response.maxPlayers, true);
+            this.players = new ArrayList<Player>(response.players);
+            this.icon = response.icon;
+        }
+
+        @Override
+        public void setServerIcon(CachedServerIcon icon) {
+            this.icon = icon;
+        }
+
+        @Override
+        public Iterator<Player> iterator() {
+            return players.iterator();
+        }
+    }
+}
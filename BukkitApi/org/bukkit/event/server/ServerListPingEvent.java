@@ -10,6 +10,18 @@ import org.bukkit.util.CachedServerIcon;
 
 /**
  * 当收到MOTD请求时被调用。显示的玩家会被检查并会在这个事件里被{@link #iterator() iterating}移出。
+ * <p>
+ * 使用{@link ServerListPingCache}时, 这个事件的信息来自缓存。
+ * 不需要根据请求者修改信息的插件可以改为监听{@link ServerListRefreshEvent}, 只在缓存刷新时被调用。
+ * <p>
+ * 原文：
+ * Called when a server list ping is coming in. Displayed players can be
+ * checked and removed by {@link #iterator() iterating} over this event.
+ * <p>
+ * When a {@link ServerListPingCache} is used, the response in this event
+ * comes from the cache. Plugins that do not tailor the response to the
+ * client can listen to {@link ServerListRefreshEvent} instead, which is only
+ * called when the cache is refreshed.
  */
 public class ServerListPingEvent extends ServerEvent implements Iterable<Player> {
     private static final int MAGIC_PLAYER_COUNT = Integer.MIN_VALUE;
@@ -40,6 +52,23 @@ public class ServerListPingEvent extends ServerEvent implements Iterable<Player>
      * @param maxPlayers 最大玩家数量
      */
     protected ServerListPingEvent(final InetAddress address, final String motd, final int maxPlayers) {
+        this(address, motd, maxPlayers, false);
+    }
+
+    /**
+     * 这个构造器用于实现提供{@link #iterator()}方法的异步事件.
+     * <p>
+     * 原文：
+     * This constructor is intended for asynchronous implementations that
+     * provide the {@link #iterator()} method.
+     *
+     * @param address 请求者的地址
+     * @param motd 每日信息
+     * @param maxPlayers 最大玩家数量
+     * @param isAsync 事件是否为异步事件
+     */
+    protected ServerListPingEvent(final InetAddress address, final String motd, final int maxPlayers, final boolean isAsync) {
+        super(isAsync);
         this.numPlayers = MAGIC_PLAYER_COUNT;
         this.address = address;
         this.motd = motd;
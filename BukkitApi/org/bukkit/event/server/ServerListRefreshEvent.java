@@ -0,0 +1,87 @@
+package org.bukkit.event.server;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.util.CachedServerIcon;
+
+/**
+ * 当{@link ServerListPingCache}刷新缓存的服务器列表信息时被调用.
+ * <p>
+ * 这个事件的修改会被缓存, 并发送给缓存有效期内的所有请求者,
+ * 因此监听这个事件而不是{@link ServerListPingEvent}的插件只会在刷新时被调用, 而不是每次请求都被调用.
+ * 需要根据请求者的地址修改信息的插件应该继续监听{@link ServerListPingEvent}.
+ * <p>
+ * 这个事件是异步事件, 在处理请求的网络线程上被调用.
+ * <p>
+ * 原文：Called when a {@link ServerListPingCache} refreshes the cached server
+ * list response.
+ * <p>
+ * Changes made to this event are cached and sent to every client that pings
+ * while the cache is fresh, so plugins listening to this event instead of
+ * {@link ServerListPingEvent} are only called on refresh rather than on every
+ * ping. Plugins that tailor the response to the address of the client
+ * should keep listening to {@link ServerListPingEvent}.
+ * <p>
+ * This event is asynchronous and called on the network thread handling the
+ * ping.
+ */
+public class ServerListRefreshEvent extends ServerListPingEvent {
+    private static final HandlerList handlers = new HandlerList();
+    private final List<Player> players;
+    private CachedServerIcon icon;
+
+    /**
+     * 创建一个刷新事件.
+     * <p>
+     * 原文：Creates a refresh event.
+     *
+     * @param address 触发刷新的请求者的地址, 如果刷新不是由请求触发的则为null
+     * @param motd 每日信息
+     * @param players 在线玩家
+     * @param maxPlayers 最大玩家数量
+     * @param icon 服务器图标, 可以为null
+     */
+    public ServerListRefreshEvent(final InetAddress address, final String motd, final Collection<? extends Player> players, final int maxPlayers, final CachedServerIcon icon) {
+        super(address, motd, maxPlayers, true);
+        Validate.notNull(players, "Players cannot be null");
+        this.players = new ArrayList<Player>(players);
+        this.icon = icon;
+    }
+
+    /**
+     * 获取发送给客户端的服务器图标.
+     * <p>
+     * 原文：Gets the server-icon sent to the client.
+     *
+     * @return 服务器图标, 可能为null
+     */
+    public CachedServerIcon getServerIcon() {
+        return icon;
+    }
+
+    @Override
+    public void setServerIcon(CachedServerIcon icon) {
+        this.icon = icon;
+    }
+
+    @Override
+    public Iterator<Player> iterator() {
+        return players.iterator();
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return handlers;
+    }
+
+    public static HandlerList getHandlerList() {
+        return handlers;
+    }
+}
@@ -3,6 +3,7 @@ package org.bukkit.event.vehicle;
 import org.bukkit.Location;
 import org.bukkit.entity.Vehicle;
 import org.bukkit.event.HandlerList;
+import org.bukkit.event.MoveGranularity;
 
 /**
  * 载具移动事件
@@ -50,4 +51,20 @@ public class VehicleMoveEvent extends VehicleEvent {
     public static HandlerList getHandlerList() {
         return handlers;
     }
+
+    /**
+     * 检查是否有监听器关心从一个位置到另一个位置的移动.如果返回false, 就不必构造和调用这个事件.
+     * <p>
+     * 原文:Checks whether any listener cares about a move from one location to
+     * another. If this returns false, the event does not need to be
+     * constructed or called.
+     *
+     * @param from 移动前的位置
+     * @param to 移动后的位置
+     * @return 如果至少有一个监听器关心这次移动则返回true
+     * @see MoveGranularity
+     */
+    public static boolean hasListeners(Location from, Location to) {
+        return handlers.hasListeners(from, to);
+    }
 }
\ No newline at end of file
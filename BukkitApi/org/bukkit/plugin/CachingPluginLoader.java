@@ -0,0 +1,28 @@
+package org.bukkit.plugin;
+
+/**
+ * Represents a plugin loader that can read plugin descriptions through a
+ * {@link PluginDescriptionCache} and record the classes plugins load to a
+ * {@link PluginClassProfile}.
+ * <p>
+ * {@link SimplePluginManager} hands its cache and profile to the loaders it
+ * registers, and again whenever either of them is changed.
+ */
+public interface CachingPluginLoader extends PluginLoader {
+
+    /**
+     * Sets the cache to read plugin descriptions through
+     *
+     * @param cache Cache to use, or null to read every description from its
+     *     plugin file
+     */
+    public void setDescriptionCache(PluginDescriptionCache cache);
+
+    /**
+     * Sets the profile to record the classes plugins load while they start
+     * to, and to load them ahead of time from
+     *
+     * @param profile Profile to use, or null to not record classes
+     */
+    public void setClassProfile(PluginClassProfile profile);
+}
@@ -1,5 +1,7 @@
 package org.bukkit.plugin;
 
+import java.lang.reflect.Method;
+
 import org.bukkit.event.Event;
 import org.bukkit.event.EventException;
 import org.bukkit.event.Listener;
@@ -9,4 +11,26 @@ import org.bukkit.event.Listener;
  */
 public interface EventExecutor {
     public void execute(Listener listener, Event event) throws EventException;
+
+    /**
+     * 为给定的事件处理方法创建一个事件执行器.
+     * <p>
+     * 执行器会优先直接调用处理方法(通过生成的类或MethodHandle),
+     * 而不是每次都使用反射的{@link Method#invoke(Object, Object...)}.
+     * 如果当前环境不支持直接调用, 则退回到反射调用.
+     * <p>
+     * 原文：Creates an executor for the given event handler method.
+     * <p>
+     * The executor calls the handler directly (through a generated class or a
+     * MethodHandle) rather than through reflective
+     * {@link Method#invoke(Object, Object...)} on every call, falling back to
+     * reflection when direct calls are unavailable.
+     *
+     * @param method 处理方法, 有且只有一个事件参数
+     * @param eventClass 处理方法接受的事件类, 其他类型的事件会被忽略
+     * @return 事件执行器
+     */
+    public static EventExecutor create(Method method, Class<? extends Event> eventClass) {
+        return EventExecutorFactory.create(method, eventClass);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package org.bukkit.plugin;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+
+/**
+ * Creates {@link EventExecutor}s for annotated event handler methods.
+ * <p>
+ * Three strategies are tried in order:
+ * <ol>
+ * <li>A class generated by {@link LambdaMetafactory} inside the handler's
+ *     own class, which calls the handler with a plain invokevirtual</li>
+ * <li>A {@link MethodHandle} adapted to {@code (Listener, Event)void}</li>
+ * <li>Reflective {@link Method#invoke(Object, Object...)}</li>
+ * </ol>
+ */
+final class EventExecutorFactory {
+    private static final MethodType EXECUTE_TYPE = MethodType.methodType(void.class, Listener.class, Event.class);
+
+    private EventExecutorFactory() {}
+
+    static EventExecutor create(Method method, Class<? extends Event> eventClass) {
+        Validate.notNull(method, "Method cannot be null");
+        Validate.notNull(eventClass, "Event class cannot be null");
+
+        method.setAccessible(true);
+
+        EventExecutor executor = createGenerated(method, eventClass);
+        if (executor == null) {
+            executor = createMethodHandle(method, eventClass);
+        }
+        if (executor == null) {
+            executor = new ReflectiveEventExecutor(method, eventClass);
+        }
+        return executor;
+    }
+
+    private static EventExecutor createGenerated(Method method, Class<? extends Event> eventClass) {
+        Class<?> owner = method.getDeclaringClass();
+        if (Modifier.isStatic(method.getModifiers()) || !Listener.class.isAssignableFrom(owner)) {
+            return null;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = privateLookupIn(owner);
+            MethodHandle target = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "execute",
+                    MethodType.methodType(EventExecutor.class),
+                    EXECUTE_TYPE,
+                    target,
+                    MethodType.methodType(void.class, owner, eventClass));
+            EventExecutor handler = (EventExecutor) site.getTarget().invoke();
+            return new GeneratedEventExecutor(handler, eventClass);
+        } catch (Throwable ex) {
+            // Newer runtimes refuse to spin classes into a foreign loader, use a method handle instead
+            return null;
+        }
+    }
+
+    private static EventExecutor createMethodHandle(Method method, Class<? extends Event> eventClass) {
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Listener.class);
+            }
+            return new MethodHandleEventExecutor(handle.asType(EXECUTE_TYPE), eventClass);
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    private static MethodHandles.Lookup privateLookupIn(Class<?> owner) throws ReflectiveOperationException {
+        try {
+            Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            return (MethodHandles.Lookup) privateLookupIn.invoke(null, owner, MethodHandles.lookup());
+        } catch (NoSuchMethodException ex) {
+            // Java 8 has no privateLookupIn, but allows the full-power constructor to be opened
+            Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(owner);
+        }
+    }
+
+    /**
+     * Wraps the generated class, which implements {@link EventExecutor} by
+     * calling the handler straight through without the type check or the
+     * exception wrapping.
+     */
+    static final class GeneratedEventExecutor implements EventExecutor {
+        private final EventExecutor handler;
+        private final Class<? extends Event> eventClass;
+
+        GeneratedEventExecutor(EventExecutor handler, Class<? extends Event> eventClass) {
+            this.handler = handler;
+            this.eventClass = eventClass;
+        }
+
+        public void execute(Listener listener, Event event) throws EventException {
+            if (!eventClass.isInstance(event)) {
+                return;
+            }
+            try {
+                handler.execute(listener, event);
+            } catch (Throwable t) {
+                throw new EventException(t);
+            }
+        }
+    }
+
+    static final class MethodHandleEventExecutor implements EventExecutor {
+        private final MethodHandle handle;
+        private final Class<? extends Event> eventClass;
+
+        MethodHandleEventExecutor(MethodHandle handle, Class<? extends Event> eventClass) {
+            this.handle = handle;
+            this.eventClass = eventClass;
+        }
+
+        public void execute(Listener listener, Event event) throws EventException {
+            if (!eventClass.isInstance(event)) {
+                return;
+            }
+            try {
+                handle.invokeExact(listener, event);
+            } catch (Throwable t) {
+                throw new EventException(t);
+            }
+        }
+    }
+
+    static final class ReflectiveEventExecutor implements EventExecutor {
+        private final Method method;
+        private final Class<? extends Event> eventClass;
+
+        ReflectiveEventExecutor(Method method, Class<? extends Event> eventClass) {
+            this.method = method;
+            this.eventClass = eventClass;
+        }
+
+        public void execute(Listener listener, Event event) throws EventException {
+            try {
+                if (!eventClass.isAssignableFrom(event.getClass())) {
+                    return;
+                }
+                method.invoke(listener, event);
+            } catch (InvocationTargetException ex) {
+                throw new EventException(ex.getCause());
+            } catch (Throwable t) {
+                throw new EventException(t);
+            }
+        }
+    }
+}
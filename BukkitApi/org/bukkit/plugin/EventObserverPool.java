@@ -0,0 +1,206 @@
+package org.bukkit.plugin;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Runs asynchronous observer listeners off the thread that called the event.
+ * <p>
+ * Observer calls are published to a bounded ring buffer and consumed by a
+ * fixed pool of daemon worker threads. When the buffer is full the
+ * {@link OverflowPolicy} decides what happens, and every outcome is
+ * counted, so a server can tell whether its observers keep up.
+ *
+ * @see org.bukkit.event.EventHandler#asyncObserver()
+ */
+public final class EventObserverPool {
+    private static final long POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * What to do with an observer call when the buffer is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the call being published
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued call to make room
+         */
+        DROP_OLDEST,
+        /**
+         * Run the call on the publishing thread, slowing the publisher down
+         * to the pace of the workers
+         */
+        CALLER_RUNS
+    }
+
+    private final ArrayBlockingQueue<Runnable> buffer;
+    private final OverflowPolicy policy;
+    private final Logger logger;
+    private final Thread[] workers;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder ranInline = new LongAdder();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Creates a pool and starts its worker threads
+     *
+     * @param workers Number of worker threads
+     * @param capacity Number of calls the buffer can hold
+     * @param policy What to do when the buffer is full
+     * @param logger Logger for calls that fail unexpectedly
+     */
+    public EventObserverPool(int workers, int capacity, OverflowPolicy policy, Logger logger) {
+        Validate.isTrue(workers > 0, "Workers must be positive");
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        Validate.notNull(policy, "Policy cannot be null");
+        Validate.notNull(logger, "Logger cannot be null");
+
+        this.buffer = new ArrayBlockingQueue<Runnable>(capacity);
+        this.policy = policy;
+        this.logger = logger;
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, "Event Observer #" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            this.workers[i] = worker;
+        }
+    }
+
+    /**
+     * Publishes an observer call
+     *
+     * @param call Call to run on a worker
+     * @return false if the call was dropped
+     */
+    public boolean publish(Runnable call) {
+        if (shutdown) {
+            dropped.increment();
+            return false;
+        }
+        published.increment();
+        if (buffer.offer(call)) {
+            return true;
+        }
+
+        switch (policy) {
+        case DROP_OLDEST:
+            while (!buffer.offer(call)) {
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            return true;
+        case CALLER_RUNS:
+            ranInline.increment();
+            run(call);
+            return true;
+        default:
+            dropped.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting calls. The workers finish the calls already queued and
+     * then exit.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Gets the policy applied when the buffer is full
+     *
+     * @return Overflow policy
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets how many calls are waiting in the buffer
+     *
+     * @return Number of queued calls
+     */
+    public int getQueuedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Gets how many calls were published, including dropped ones
+     *
+     * @return Number of published calls
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Gets how many calls have been run, by the workers or by the publisher
+     *
+     * @return Number of completed calls
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * Gets how many calls were dropped because the buffer was full or the
+     * pool was shut down
+     *
+     * @return Number of dropped calls
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets how many calls ran on the publishing thread because the buffer
+     * was full
+     *
+     * @return Number of calls run by the publisher
+     */
+    public long getCallerRunsCount() {
+        return ranInline.sum();
+    }
+
+    private void work() {
+        while (true) {
+            Runnable call;
+            try {
+                call = buffer.poll(POLL_INTERVAL, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (call != null) {
+                run(call);
+            } else if (shutdown) {
+                return;
+            }
+        }
+    }
+
+    private void run(Runnable call) {
+        try {
+            call.run();
+        } catch (Throwable ex) {
+            logger.log(Level.SEVERE, "Unhandled exception in event observer", ex);
+        } finally {
+            completed.increment();
+        }
+    }
+}
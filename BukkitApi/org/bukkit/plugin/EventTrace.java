@@ -0,0 +1,221 @@
+package org.bukkit.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The contents of a file written by {@link EventTraceRecorder}.
+ */
+public final class EventTrace {
+    private final long startedMillis;
+    private final long writtenCount;
+    private final List<Record> records;
+
+    private EventTrace(long startedMillis, long writtenCount, List<Record> records) {
+        this.startedMillis = startedMillis;
+        this.writtenCount = writtenCount;
+        this.records = Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Reads a trace file
+     *
+     * @param source File written by an {@link EventTraceRecorder}
+     * @return The trace
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static EventTrace read(File source) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(source, "r");
+        try {
+            ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (buffer.capacity() < EventTraceRecorder.HEADER_SIZE || buffer.getInt(0) != EventTraceRecorder.MAGIC) {
+                throw new IOException(source + " is not an event trace");
+            }
+            if (buffer.getInt(4) != EventTraceRecorder.VERSION) {
+                throw new IOException("Unsupported event trace version " + buffer.getInt(4));
+            }
+
+            int dictionarySize = buffer.getInt(EventTraceRecorder.OFFSET_DICTIONARY_SIZE);
+            int capacity = buffer.getInt(EventTraceRecorder.OFFSET_CAPACITY);
+            long written = buffer.getLong(EventTraceRecorder.OFFSET_WRITTEN);
+            int ringStart = EventTraceRecorder.HEADER_SIZE + dictionarySize;
+            if (buffer.capacity() < ringStart + (long) capacity * EventTraceRecorder.RECORD_SIZE) {
+                throw new IOException(source + " is truncated");
+            }
+
+            List<String> names = new ArrayList<String>();
+            int count = buffer.getInt(EventTraceRecorder.OFFSET_NAMES);
+            int offset = EventTraceRecorder.HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort(offset);
+                byte[] bytes = new byte[length];
+                for (int j = 0; j < length; j++) {
+                    bytes[j] = buffer.get(offset + 2 + j);
+                }
+                names.add(new String(bytes, StandardCharsets.UTF_8));
+                offset += 2 + length;
+            }
+
+            int size = (int) Math.min(written, capacity);
+            long first = written - size;
+            List<Record> records = new ArrayList<Record>(size);
+            for (long sequence = first; sequence < written; sequence++) {
+                int position = ringStart + (int) (sequence % capacity) * EventTraceRecorder.RECORD_SIZE;
+                int eventId = buffer.getInt(position);
+                int listenerId = buffer.getInt(position + 4);
+                records.add(new Record(
+                        name(names, eventId),
+                        listenerId == EventTraceRecorder.DISPATCH ? null : name(names, listenerId),
+                        buffer.getLong(position + 8),
+                        buffer.getLong(position + 16)));
+            }
+            Collections.sort(records, (a, b) -> Long.compare(a.time, b.time));
+            return new EventTrace(buffer.getLong(EventTraceRecorder.OFFSET_STARTED), written, records);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static String name(List<String> names, int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : "#" + id;
+    }
+
+    /**
+     * Gets when recording started
+     *
+     * @return Wall clock time in milliseconds
+     */
+    public long getStartedMillis() {
+        return startedMillis;
+    }
+
+    /**
+     * Gets the number of records written, including those that were
+     * overwritten before the trace was read
+     *
+     * @return Number of records written
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Gets the records still held by the ring, oldest first
+     *
+     * @return Unmodifiable list of records
+     */
+    public List<Record> getRecords() {
+        return records;
+    }
+
+    /**
+     * Gets the dispatch records, one per event call, oldest first
+     *
+     * @return List of dispatch records
+     */
+    public List<Record> getDispatches() {
+        List<Record> dispatches = new ArrayList<Record>();
+        for (Record record : records) {
+            if (record.isDispatch()) {
+                dispatches.add(record);
+            }
+        }
+        return dispatches;
+    }
+
+    /**
+     * Counts how often each event class was called
+     *
+     * @return Event class names mapped to the number of calls, most
+     *     frequent first
+     */
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        for (Record record : records) {
+            if (record.isDispatch()) {
+                Long count = counts.get(record.event);
+                counts.put(record.event, count == null ? 1 : count + 1);
+            }
+        }
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(counts.entrySet());
+        Collections.sort(entries, (a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> sorted = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * A single recorded dispatch or listener call.
+     */
+    public static final class Record {
+        private final String event;
+        private final String listener;
+        private final long time;
+        private final long duration;
+
+        private Record(String event, String listener, long time, long duration) {
+            this.event = event;
+            this.listener = listener;
+            this.time = time;
+            this.duration = duration;
+        }
+
+        /**
+         * Gets the class name of the event
+         *
+         * @return Event class name
+         */
+        public String getEvent() {
+            return event;
+        }
+
+        /**
+         * Gets the listener that was called, as the full name of its plugin
+         * and the class name of the listener separated by a slash
+         *
+         * @return Listener name, or null for a dispatch record
+         */
+        public String getListener() {
+            return listener;
+        }
+
+        /**
+         * Checks whether this record covers a whole event dispatch rather
+         * than a single listener call
+         *
+         * @return true for a dispatch record
+         */
+        public boolean isDispatch() {
+            return listener == null;
+        }
+
+        /**
+         * Gets when the call started, relative to the start of recording
+         *
+         * @return Time in nanoseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Gets how long the call took
+         *
+         * @return Duration in nanoseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
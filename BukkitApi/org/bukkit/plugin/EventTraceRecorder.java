@@ -0,0 +1,219 @@
+package org.bukkit.plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.event.Event;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Records event dispatches into a memory-mapped ring file.
+ * <p>
+ * While a recorder is installed with
+ * {@link SimplePluginManager#setTraceRecorder(EventTraceRecorder)}, every
+ * call of an event writes one record for the whole dispatch and one record
+ * per listener call, each holding the event class, the time since the
+ * recorder was created and the duration. Records have a fixed size, so once
+ * the ring is full the oldest records are overwritten. Class and listener
+ * names are written once into a dictionary at the start of the file.
+ * <p>
+ * Recording is a couple of absolute writes into the mapped file and does
+ * not block, so it is safe to leave on in production. The operating system
+ * writes the pages back to disk; the file can be read with
+ * {@link EventTrace#read(File)}, also while it is being written, in which
+ * case the newest records may be torn.
+ */
+public final class EventTraceRecorder implements Closeable {
+    static final int MAGIC = 0x424B5452;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 24;
+    static final int DISPATCH = -1;
+
+    static final int OFFSET_DICTIONARY_SIZE = 8;
+    static final int OFFSET_CAPACITY = 12;
+    static final int OFFSET_WRITTEN = 16;
+    static final int OFFSET_STARTED = 24;
+    static final int OFFSET_DICTIONARY_USED = 32;
+    static final int OFFSET_NAMES = 36;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int dictionarySize;
+    private final int capacity;
+    private final int ringStart;
+    private final long started = System.nanoTime();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicBoolean storing = new AtomicBoolean();
+    private volatile long stored = 0;
+    private final ClassValue<Integer> eventIds = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return id(type.getName());
+        }
+    };
+    // Weak so unregistered listeners, and the plugins behind them, can be
+    // collected while the recorder is still installed
+    private final Map<RegisteredListener, Integer> listenerIds = new MapMaker().weakKeys().makeMap();
+    private final Map<String, Integer> names = new HashMap<String, Integer>();
+    private int dictionaryUsed = 0;
+
+    /**
+     * Creates a recorder, replacing any existing file
+     *
+     * @param target File to record to
+     * @param capacity Number of records the ring holds
+     * @param dictionarySize Bytes reserved for class and listener names
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public EventTraceRecorder(File target, int capacity, int dictionarySize) throws IOException {
+        Validate.notNull(target, "File cannot be null");
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        Validate.isTrue(dictionarySize > 0, "Dictionary size must be positive");
+        long size = HEADER_SIZE + (long) dictionarySize + (long) capacity * RECORD_SIZE;
+        Validate.isTrue(size <= Integer.MAX_VALUE, "Trace file cannot exceed 2GB");
+
+        this.capacity = capacity;
+        this.dictionarySize = dictionarySize;
+        this.ringStart = HEADER_SIZE + dictionarySize;
+        this.file = new RandomAccessFile(target, "rw");
+        try {
+            file.setLength(0);
+            file.setLength(size);
+            this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException ex) {
+            file.close();
+            throw ex;
+        }
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(OFFSET_DICTIONARY_SIZE, dictionarySize);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putLong(OFFSET_WRITTEN, 0);
+        buffer.putLong(OFFSET_STARTED, System.currentTimeMillis());
+        buffer.putInt(OFFSET_DICTIONARY_USED, 0);
+        buffer.putInt(OFFSET_NAMES, 0);
+    }
+
+    /**
+     * Gets the number of records written so far, including those already
+     * overwritten
+     *
+     * @return Number of records
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Gets the number of records the ring holds
+     *
+     * @return Capacity of the ring
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the time records are measured from
+     *
+     * @return {@link System#nanoTime()} when this recorder was created
+     */
+    long getStarted() {
+        return started;
+    }
+
+    void recordDispatch(Event event, long start, long duration) {
+        write(eventIds.get(event.getClass()), DISPATCH, start, duration);
+    }
+
+    void recordListener(RegisteredListener listener, Event event, long start, long duration) {
+        Integer id = listenerIds.get(listener);
+        if (id == null) {
+            Plugin plugin = listener.getPlugin();
+            id = id(plugin.getDescription().getFullName() + '/' + listener.getListener().getClass().getName());
+            listenerIds.put(listener, id);
+        }
+        write(eventIds.get(event.getClass()), id, start, duration);
+    }
+
+    private void write(int eventId, int listenerId, long start, long duration) {
+        long sequence = written.getAndIncrement();
+        int offset = ringStart + (int) (sequence % capacity) * RECORD_SIZE;
+        buffer.putInt(offset, eventId);
+        buffer.putInt(offset + 4, listenerId);
+        buffer.putLong(offset + 8, start - started);
+        buffer.putLong(offset + 16, duration);
+        publish(sequence + 1);
+    }
+
+    /**
+     * Stores the written count in the file, only ever raising it. Listeners
+     * of asynchronous events write concurrently and may finish out of order,
+     * so the highest count is stored by whichever thread holds the store;
+     * others that find it busy leave their count to that thread.
+     */
+    private void publish(long count) {
+        completed.accumulateAndGet(count, Math::max);
+        while (completed.get() > stored && storing.compareAndSet(false, true)) {
+            try {
+                long highest = completed.get();
+                if (highest > stored) {
+                    buffer.putLong(OFFSET_WRITTEN, highest);
+                    stored = highest;
+                }
+            } finally {
+                storing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Assigns ids in the order names are first seen. Names that no longer
+     * fit into the dictionary still get an id but are read back unnamed.
+     */
+    private synchronized int id(String name) {
+        Integer id = names.get(name);
+        if (id != null) {
+            return id;
+        }
+        id = names.size();
+        names.put(name, id);
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Short.MAX_VALUE);
+        if (id == buffer.getInt(OFFSET_NAMES) && dictionaryUsed + 2 + length <= dictionarySize) {
+            int offset = HEADER_SIZE + dictionaryUsed;
+            buffer.putShort(offset, (short) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put(offset + 2 + i, bytes[i]);
+            }
+            dictionaryUsed += 2 + length;
+            buffer.putInt(OFFSET_DICTIONARY_USED, dictionaryUsed);
+            buffer.putInt(OFFSET_NAMES, id + 1);
+        }
+        return id;
+    }
+
+    /**
+     * Flushes the mapped file to disk and closes it. The manager must no
+     * longer use this recorder.
+     */
+    public void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
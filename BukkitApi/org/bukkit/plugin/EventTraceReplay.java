@@ -0,0 +1,186 @@
+package org.bukkit.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.event.Event;
+
+/**
+ * Replays the event mix and rate of an {@link EventTrace} against the
+ * listeners registered with a plugin manager, so listener changes can be
+ * measured offline against recorded traffic.
+ * <p>
+ * Events cannot be reconstructed from a trace, so the replay asks a factory
+ * for a synthetic event of each recorded class. Classes the factory returns
+ * null for are skipped and counted. Events are called on the calling
+ * thread, at the recorded times scaled by the replay speed; when a call runs
+ * late, the following events are called without waiting until the replay
+ * has caught up.
+ */
+public final class EventTraceReplay {
+    private final PluginManager pluginManager;
+    private final Function<String, ? extends Event> factory;
+
+    /**
+     * Creates a replay
+     *
+     * @param pluginManager Manager to call the events with, usually one with
+     *     only the listeners under test registered
+     * @param factory Creates a synthetic event for a recorded event class
+     *     name, or returns null to skip the class
+     */
+    public EventTraceReplay(PluginManager pluginManager, Function<String, ? extends Event> factory) {
+        Validate.notNull(pluginManager, "Plugin manager cannot be null");
+        Validate.notNull(factory, "Factory cannot be null");
+        this.pluginManager = pluginManager;
+        this.factory = factory;
+    }
+
+    /**
+     * Replays the dispatches of a trace
+     *
+     * @param trace Trace to replay
+     * @param speed Factor to speed up the recorded rate by, or 0 to call the
+     *     events back to back
+     * @return Timings of the replayed calls
+     */
+    public Result replay(EventTrace trace, double speed) {
+        Validate.notNull(trace, "Trace cannot be null");
+        Validate.isTrue(speed >= 0, "Speed cannot be negative");
+
+        Result result = new Result();
+        long origin = -1;
+        long started = System.nanoTime();
+        for (EventTrace.Record record : trace.getDispatches()) {
+            if (origin < 0) {
+                origin = record.getTime();
+            }
+            if (speed > 0) {
+                long due = started + (long) ((record.getTime() - origin) / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    result.lagged++;
+                }
+            }
+
+            Event event = factory.apply(record.getEvent());
+            if (event == null) {
+                Long skipped = result.skipped.get(record.getEvent());
+                result.skipped.put(record.getEvent(), skipped == null ? 1 : skipped + 1);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            pluginManager.callEvent(event);
+            long duration = System.nanoTime() - start;
+            result.replayed.record(duration);
+            result.recorded.record(record.getDuration());
+        }
+        result.elapsed = System.nanoTime() - started;
+        return result;
+    }
+
+    /**
+     * Timings of a replay.
+     */
+    public static final class Result {
+        private final TimingHistogram replayed = new TimingHistogram();
+        private final TimingHistogram recorded = new TimingHistogram();
+        private final Map<String, Long> skipped = new HashMap<String, Long>();
+        private long lagged;
+        private long elapsed;
+
+        private Result() {}
+
+        /**
+         * Gets the number of events that were replayed
+         *
+         * @return Number of events called
+         */
+        public long getCount() {
+            return replayed.getCount();
+        }
+
+        /**
+         * Gets the time spent calling the replayed events
+         *
+         * @return Total call time in nanoseconds
+         */
+        public long getTotalTime() {
+            return replayed.getTotal();
+        }
+
+        /**
+         * Gets the time the replayed events took when they were recorded
+         *
+         * @return Total recorded call time in nanoseconds
+         */
+        public long getRecordedTotalTime() {
+            return recorded.getTotal();
+        }
+
+        /**
+         * Estimates the given percentile of the replayed call times
+         *
+         * @param percentile Percentile between 0 and 100, such as 99
+         * @return Estimated call time in nanoseconds
+         */
+        public long getPercentile(double percentile) {
+            return replayed.getPercentile(percentile / 100);
+        }
+
+        /**
+         * Estimates the given percentile of the call times the replayed
+         * events took when they were recorded
+         *
+         * @param percentile Percentile between 0 and 100, such as 99
+         * @return Estimated call time in nanoseconds
+         */
+        public long getRecordedPercentile(double percentile) {
+            return recorded.getPercentile(percentile / 100);
+        }
+
+        /**
+         * Gets the longest replayed call
+         *
+         * @return Call time in nanoseconds
+         */
+        public long getMaxTime() {
+            return replayed.getMax();
+        }
+
+        /**
+         * Gets the number of events that could not be called on time because
+         * earlier calls ran late
+         *
+         * @return Number of late events
+         */
+        public long getLaggedCount() {
+            return lagged;
+        }
+
+        /**
+         * Gets the recorded event classes the factory did not provide an
+         * event for
+         *
+         * @return Class names mapped to the number of skipped events
+         */
+        public Map<String, Long> getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gets how long the replay took
+         *
+         * @return Wall time in nanoseconds
+         */
+        public long getElapsedTime() {
+            return elapsed;
+        }
+    }
+}
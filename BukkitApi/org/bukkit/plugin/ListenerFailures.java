@@ -0,0 +1,135 @@
+package org.bukkit.plugin;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Failure bookkeeping of a single {@link RegisteredListener}, created on its
+ * first failure.
+ * <p>
+ * Failures are grouped by the classes and stack traces of the exception and
+ * its causes, so that the same broken handler logs one stack trace per log
+ * interval instead of one per event. Consecutive failures drive the optional
+ * circuit breaker of {@link SimplePluginManager}.
+ */
+final class ListenerFailures {
+    private static final int MAX_SIGNATURES = 32;
+
+    private final Map<Integer, Signature> signatures = new LinkedHashMap<Integer, Signature>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Signature> eldest) {
+            return size() > MAX_SIGNATURES;
+        }
+    };
+    private long failures;
+    private long suppressed;
+    private long skipped;
+    private int consecutive;
+    private volatile long suspendedUntil;
+    private volatile boolean failing;
+
+    /**
+     * Records a failure.
+     *
+     * @param ex the failure
+     * @param now current {@link System#nanoTime()}
+     * @param logInterval how long to suppress identical failures, in
+     *     nanoseconds
+     * @return -1 if the failure should not be logged, otherwise how many
+     *     identical failures were suppressed since it was last logged
+     */
+    synchronized long failed(Throwable ex, long now, long logInterval) {
+        failures++;
+        consecutive++;
+        failing = true;
+
+        Integer key = signature(ex);
+        Signature signature = signatures.get(key);
+        if (signature == null) {
+            signature = new Signature();
+            signatures.put(key, signature);
+        } else if (now - signature.lastLogged < logInterval) {
+            signature.suppressed++;
+            suppressed++;
+            return -1;
+        }
+
+        long previouslySuppressed = signature.suppressed;
+        signature.suppressed = 0;
+        signature.lastLogged = now;
+        return previouslySuppressed;
+    }
+
+    /**
+     * Marks a successful call, closing the circuit breaker again.
+     */
+    void succeeded() {
+        if (failing) {
+            synchronized (this) {
+                failing = false;
+                consecutive = 0;
+                suspendedUntil = 0;
+            }
+        }
+    }
+
+    synchronized int getConsecutiveFailures() {
+        return consecutive;
+    }
+
+    void suspend(long until) {
+        suspendedUntil = until == 0 ? 1 : until;
+    }
+
+    /**
+     * Checks whether calls are currently being skipped. Once the suspension
+     * has expired calls are let through again; the next failure suspends
+     * the listener anew.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return true if the call should be skipped
+     */
+    boolean isSuspended(long now) {
+        long until = suspendedUntil;
+        if (until == 0 || now - until >= 0) {
+            return false;
+        }
+        synchronized (this) {
+            skipped++;
+        }
+        return true;
+    }
+
+    boolean isSuspended() {
+        long until = suspendedUntil;
+        return until != 0 && System.nanoTime() - until < 0;
+    }
+
+    synchronized long getFailures() {
+        return failures;
+    }
+
+    synchronized long getSuppressed() {
+        return suppressed;
+    }
+
+    synchronized long getSkipped() {
+        return skipped;
+    }
+
+    private static Integer signature(Throwable ex) {
+        int hash = 1;
+        Throwable cause = ex;
+        for (int depth = 0; cause != null && depth < 8; depth++, cause = cause.getCause()) {
+            hash = 31 * hash + cause.getClass().getName().hashCode();
+            hash = 31 * hash + Arrays.hashCode(cause.getStackTrace());
+        }
+        return hash;
+    }
+
+    private static final class Signature {
+        private long lastLogged;
+        private long suppressed;
+    }
+}
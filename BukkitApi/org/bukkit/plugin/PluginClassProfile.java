@@ -0,0 +1,151 @@
+package org.bukkit.plugin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.Validate;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * A store of the classes each plugin loads while it starts, so the next
+ * start can load them ahead of time on background threads.
+ * <p>
+ * Plugin loaders record the classes a plugin defines from being loaded until
+ * it is enabled, and save them here in the order they were defined. Each
+ * plugin has one profile file in the profile directory, tagged with the
+ * SHA-256 of the plugin file it was recorded from. A profile is only handed
+ * out while the plugin file still has that hash, so an updated plugin is
+ * recorded again on its next start.
+ */
+public final class PluginClassProfile {
+    private static final String EXTENSION = ".classes";
+
+    private final File directory;
+    private final Logger logger;
+
+    /**
+     * Creates a store backed by the given directory
+     *
+     * @param directory Directory the profiles are stored in; created when the
+     *     first profile is saved
+     * @param logger Logger to report unreadable or unwritable profiles to
+     */
+    public PluginClassProfile(File directory, Logger logger) {
+        Validate.notNull(directory, "Directory cannot be null");
+        Validate.notNull(logger, "Logger cannot be null");
+        this.directory = directory;
+        this.logger = logger;
+    }
+
+    /**
+     * Gets the classes recorded for a plugin, if they were recorded from the
+     * same plugin file
+     *
+     * @param plugin Name of the plugin
+     * @param hash Hash of the plugin file the plugin is loaded from, see
+     *     {@link #hash(File)}
+     * @return Names of the recorded classes in the order they were defined,
+     *     or null if there is no profile or the plugin file has changed
+     */
+    public List<String> getClasses(String plugin, String hash) {
+        Validate.notNull(plugin, "Plugin name cannot be null");
+        Validate.notNull(hash, "Hash cannot be null");
+
+        File profile = new File(directory, plugin + EXTENSION);
+        if (!profile.isFile()) {
+            return null;
+        }
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(profile), StandardCharsets.UTF_8));
+            try {
+                if (!hash.equals(reader.readLine())) {
+                    return null;
+                }
+
+                List<String> classes = new ArrayList<String>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        classes.add(line);
+                    }
+                }
+                return classes;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not read class profile " + profile, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the classes recorded for a plugin, replacing its previous profile
+     *
+     * @param plugin Name of the plugin
+     * @param hash Hash of the plugin file the classes were recorded from, see
+     *     {@link #hash(File)}
+     * @param classes Names of the classes in the order they were defined
+     */
+    public void setClasses(String plugin, String hash, Collection<String> classes) {
+        Validate.notNull(plugin, "Plugin name cannot be null");
+        Validate.notNull(hash, "Hash cannot be null");
+        Validate.notNull(classes, "Classes cannot be null");
+
+        File profile = new File(directory, plugin + EXTENSION);
+        File temp = new File(directory, plugin + EXTENSION + ".tmp");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8));
+            try {
+                writer.write(hash);
+                writer.newLine();
+                for (String name : classes) {
+                    writer.write(name);
+                    writer.newLine();
+                }
+            } finally {
+                writer.close();
+            }
+
+            if (!temp.renameTo(profile) && !(profile.delete() && temp.renameTo(profile))) {
+                throw new IOException("Could not replace " + profile);
+            }
+        } catch (IOException ex) {
+            temp.delete();
+            logger.log(Level.WARNING, "Could not save class profile " + profile, ex);
+        }
+    }
+
+    /**
+     * Computes the hash profiles are tagged with. Plugin loaders compute it
+     * once when a plugin is loaded and pass it to both
+     * {@link #getClasses(String, String)} and
+     * {@link #setClasses(String, String, Collection)}.
+     *
+     * @param file Plugin file to hash
+     * @return SHA-256 of the file as a hexadecimal string
+     * @throws IOException if the file cannot be read
+     */
+    public static String hash(File file) throws IOException {
+        return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    }
+}
@@ -0,0 +1,313 @@
+package org.bukkit.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The load order of a set of plugins as a directed graph.
+ * <p>
+ * A plugin waits for its {@code depend} and {@code softdepend} plugins, and
+ * for the plugins that name it in {@code loadbefore}. Soft edges to plugins
+ * that are not part of the graph are dropped. The graph hands out plugins in
+ * waves: every plugin of a wave only waits for plugins of earlier waves, so
+ * the plugins of one wave can be constructed at the same time. Within a wave
+ * plugins are ordered by name.
+ * <p>
+ * When no plugin is ready, soft cycles are broken by loading the first
+ * plugin that only waits on soft edges, and hard cycles are reported with
+ * their members.
+ */
+final class PluginDependencyGraph {
+    private final Map<String, Node> nodes = new HashMap<String, Node>();
+    private final TreeMap<String, Node> ready = new TreeMap<String, Node>();
+    private int unresolved;
+
+    PluginDependencyGraph(Map<String, PluginDescriptionFile> descriptions) {
+        for (String name : descriptions.keySet()) {
+            nodes.put(name, new Node(name));
+        }
+        unresolved = nodes.size();
+
+        for (Map.Entry<String, PluginDescriptionFile> entry : descriptions.entrySet()) {
+            Node node = nodes.get(entry.getKey());
+            PluginDescriptionFile description = entry.getValue();
+
+            for (String depend : description.getDepend()) {
+                Node dependency = nodes.get(depend);
+                if (dependency == null) {
+                    if (node.missing == null) {
+                        node.missing = depend;
+                    }
+                } else {
+                    addEdge(dependency, node, true);
+                }
+            }
+            for (String softDepend : description.getSoftDepend()) {
+                Node dependency = nodes.get(softDepend);
+                if (dependency != null && dependency != node) {
+                    addEdge(dependency, node, false);
+                }
+            }
+            for (String loadBefore : description.getLoadBefore()) {
+                Node dependent = nodes.get(loadBefore);
+                if (dependent != null && dependent != node) {
+                    addEdge(node, dependent, false);
+                }
+            }
+        }
+
+        for (Node node : nodes.values()) {
+            if (node.missing != null) {
+                // Reported right away, like a dependency that failed to load
+                node.pending = 0;
+            }
+            if (node.pending == 0) {
+                queue(node);
+            }
+        }
+    }
+
+    private static void addEdge(Node dependency, Node dependent, boolean hard) {
+        Boolean previous = dependent.dependencies.get(dependency);
+        if (previous == null) {
+            dependent.dependencies.put(dependency, hard);
+            dependency.dependents.add(dependent);
+            dependent.pending++;
+        } else if (hard && !previous) {
+            dependent.dependencies.put(dependency, true);
+        }
+    }
+
+    private void queue(Node node) {
+        node.queued = true;
+        ready.put(node.name, node);
+    }
+
+    /**
+     * Gets the next wave of plugins. Every plugin of a wave must be passed to
+     * {@link #resolved(String, boolean)} before the next wave is requested.
+     *
+     * @return The plugins of the next wave, or an empty list once all
+     *     plugins have been resolved
+     */
+    List<Step> nextWave() {
+        if (ready.isEmpty() && unresolved > 0) {
+            breakCycle();
+        }
+
+        List<Step> wave = new ArrayList<Step>(ready.size());
+        for (Node node : ready.values()) {
+            wave.add(new Step(node));
+        }
+        ready.clear();
+        return wave;
+    }
+
+    /**
+     * Marks a plugin of the current wave as resolved
+     *
+     * @param name Name of the plugin
+     * @param loaded Whether the plugin was loaded; plugins that hard depend
+     *     on a plugin that was not loaded cannot be loaded either
+     */
+    void resolved(String name, boolean loaded) {
+        Node node = nodes.get(name);
+        if (node.resolved) {
+            return;
+        }
+        node.resolved = true;
+        unresolved--;
+
+        for (Node dependent : node.dependents) {
+            if (dependent.resolved || dependent.queued) {
+                continue;
+            }
+            boolean hard = dependent.dependencies.get(node);
+            if (hard && !loaded && dependent.missing == null) {
+                dependent.missing = name;
+            }
+            if (!hard && dependent.ignoreSoft) {
+                continue;
+            }
+            if (--dependent.pending == 0) {
+                queue(dependent);
+            }
+        }
+    }
+
+    private void breakCycle() {
+        // A soft cycle: load the first plugin that only waits on soft edges
+        for (Node node : new TreeMap<String, Node>(nodes).values()) {
+            if (node.resolved || node.queued) {
+                continue;
+            }
+            boolean hard = false;
+            List<String> ignored = new ArrayList<String>();
+            for (Map.Entry<Node, Boolean> dependency : node.dependencies.entrySet()) {
+                if (dependency.getKey().resolved) {
+                    continue;
+                }
+                if (dependency.getValue()) {
+                    hard = true;
+                    break;
+                }
+                ignored.add(dependency.getKey().name);
+            }
+            if (!hard) {
+                Collections.sort(ignored);
+                node.ignoreSoft = true;
+                node.ignored = ignored;
+                node.pending = 0;
+                queue(node);
+                return;
+            }
+        }
+
+        // Otherwise every waiting plugin has a hard dependency left, so hard
+        // cycles exist. Report the members of each one.
+        for (List<Node> cycle : findHardCycles()) {
+            List<String> members = new ArrayList<String>(cycle.size());
+            for (Node node : cycle) {
+                members.add(node.name);
+            }
+            Collections.sort(members);
+            members = Collections.unmodifiableList(members);
+            for (Node node : cycle) {
+                node.cycle = members;
+                queue(node);
+            }
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the unresolved plugins
+     * along hard edges that contain a cycle, using Tarjan's algorithm.
+     */
+    private List<List<Node>> findHardCycles() {
+        List<List<Node>> cycles = new ArrayList<List<Node>>();
+        Map<Node, int[]> index = new LinkedHashMap<Node, int[]>();
+        Deque<Node> stack = new ArrayDeque<Node>();
+        int[] counter = {0};
+        for (Node node : new TreeMap<String, Node>(nodes).values()) {
+            if (!node.resolved && !index.containsKey(node)) {
+                connect(node, index, stack, counter, cycles);
+            }
+        }
+        return cycles;
+    }
+
+    private void connect(Node node, Map<Node, int[]> index, Deque<Node> stack, int[] counter, List<List<Node>> cycles) {
+        // {index, lowlink, on stack}
+        int[] state = {counter[0], counter[0], 1};
+        counter[0]++;
+        index.put(node, state);
+        stack.push(node);
+
+        boolean selfLoop = false;
+        for (Map.Entry<Node, Boolean> dependency : node.dependencies.entrySet()) {
+            Node next = dependency.getKey();
+            if (!dependency.getValue() || next.resolved) {
+                continue;
+            }
+            if (next == node) {
+                selfLoop = true;
+                continue;
+            }
+            int[] nextState = index.get(next);
+            if (nextState == null) {
+                connect(next, index, stack, counter, cycles);
+                state[1] = Math.min(state[1], index.get(next)[1]);
+            } else if (nextState[2] == 1) {
+                state[1] = Math.min(state[1], nextState[0]);
+            }
+        }
+
+        if (state[1] == state[0]) {
+            List<Node> component = new ArrayList<Node>();
+            Node member;
+            do {
+                member = stack.pop();
+                index.get(member)[2] = 0;
+                component.add(member);
+            } while (member != node);
+            if (component.size() > 1 || selfLoop) {
+                cycles.add(component);
+            }
+        }
+    }
+
+    /**
+     * A plugin handed out by {@link #nextWave()}.
+     */
+    static final class Step {
+        private final String name;
+        private final String missing;
+        private final List<String> cycle;
+        private final List<String> ignored;
+
+        private Step(Node node) {
+            this.name = node.name;
+            this.missing = node.missing;
+            this.cycle = node.cycle;
+            this.ignored = node.ignored;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return true if nothing keeps this plugin from being loaded
+         */
+        boolean canLoad() {
+            return missing == null && cycle == null;
+        }
+
+        /**
+         * @return A hard dependency that is missing or failed to load, or
+         *     null
+         */
+        String getMissingDependency() {
+            return missing;
+        }
+
+        /**
+         * @return The sorted members of the hard cycle this plugin is part
+         *     of, or null
+         */
+        List<String> getCycle() {
+            return cycle;
+        }
+
+        /**
+         * @return The soft dependencies that were ignored to break a cycle
+         */
+        List<String> getIgnoredSoftDependencies() {
+            return ignored;
+        }
+    }
+
+    private static final class Node {
+        private final String name;
+        private final Map<Node, Boolean> dependencies = new LinkedHashMap<Node, Boolean>();
+        private final List<Node> dependents = new ArrayList<Node>();
+        private int pending;
+        private boolean queued;
+        private boolean resolved;
+        private boolean ignoreSoft;
+        private String missing;
+        private List<String> cycle;
+        private List<String> ignored = Collections.emptyList();
+
+        private Node(String name) {
+            this.name = name;
+        }
+    }
+}
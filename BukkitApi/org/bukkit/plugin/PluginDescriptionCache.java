@@ -0,0 +1,426 @@
+package org.bukkit.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.Validate;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * An on-disk cache of parsed plugin descriptions, so plugin.yml does not
+ * have to be read from every jar and parsed on every start.
+ * <p>
+ * Entries are keyed by the canonical path of the plugin file and are only
+ * used while its size and modification time are unchanged. With
+ * {@link #setVerify(boolean)}, the content hash of the file is compared as
+ * well, which reads the whole file but still skips opening it as a jar and
+ * parsing YAML.
+ * <p>
+ * The cache stores the parsed plugin.yml in a compact binary form and
+ * rebuilds descriptions from it, so commands, permissions and every other
+ * field come back exactly as parsed. Descriptions that are invalid or that
+ * contain values the binary form cannot hold are not cached.
+ */
+public final class PluginDescriptionCache {
+    private static final int MAGIC = 0x424B4443;
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int BOOLEAN = 2;
+    private static final int INTEGER = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int BIG_INTEGER = 6;
+    private static final int LIST = 7;
+    private static final int SET = 8;
+    private static final int MAP = 9;
+    private static final int AWARENESS = 10;
+    private static final int MAX_DEPTH = 64;
+
+    private final File file;
+    private final Logger logger;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean verify = false;
+    private volatile boolean dirty = false;
+
+    /**
+     * Creates a cache backed by the given file, reading the entries it
+     * already holds. A missing or unreadable file gives an empty cache.
+     *
+     * @param file File the cache is stored in
+     * @param logger Logger to report an unreadable cache to
+     */
+    public PluginDescriptionCache(File file, Logger logger) {
+        Validate.notNull(file, "File cannot be null");
+        Validate.notNull(logger, "Logger cannot be null");
+        this.file = file;
+        this.logger = logger;
+
+        if (file.isFile()) {
+            try {
+                read();
+            } catch (IOException ex) {
+                entries.clear();
+                logger.log(Level.WARNING, "Could not read plugin description cache " + file + ", rebuilding it", ex);
+            } catch (RuntimeException ex) {
+                entries.clear();
+                logger.log(Level.WARNING, "Plugin description cache " + file + " is corrupt, rebuilding it", ex);
+            }
+        }
+    }
+
+    /**
+     * Sets whether entries are verified against the content hash of the
+     * plugin file before they are used
+     *
+     * @param verify true to verify every entry
+     */
+    public void setVerify(boolean verify) {
+        this.verify = verify;
+    }
+
+    /**
+     * Gets the description of a plugin file from the cache, or from the
+     * loader if the file is not cached or has changed
+     *
+     * @param plugin Plugin file
+     * @param loader Loader to read the description with on a miss
+     * @return The description of the plugin
+     * @throws InvalidDescriptionException if the loader finds the
+     *     description invalid
+     */
+    public PluginDescriptionFile getDescription(File plugin, PluginLoader loader) throws InvalidDescriptionException {
+        Validate.notNull(plugin, "Plugin file cannot be null");
+        Validate.notNull(loader, "Loader cannot be null");
+
+        String key = key(plugin);
+        long size = plugin.length();
+        long modified = plugin.lastModified();
+        Entry entry = entries.get(key);
+        byte[] hash = null;
+
+        if (entry != null && entry.size == size && entry.modified == modified) {
+            boolean valid = true;
+            if (verify) {
+                hash = hash(plugin);
+                valid = hash != null && Arrays.equals(hash, entry.hash);
+            }
+            if (valid) {
+                try {
+                    PluginDescriptionFile description = new PluginDescriptionFile((Map<?, ?>) decode(entry.data));
+                    hits.increment();
+                    return description;
+                } catch (IOException ex) {
+                    // Fall through and replace the entry
+                } catch (InvalidDescriptionException ex) {
+                    // Fall through and replace the entry
+                } catch (RuntimeException ex) {
+                    // Fall through and replace the entry
+                }
+            }
+        }
+
+        misses.increment();
+        PluginDescriptionFile description;
+        Map<?, ?>[] source = PluginDescriptionFile.startCapture();
+        try {
+            description = loader.getPluginDescription(plugin);
+        } finally {
+            PluginDescriptionFile.stopCapture();
+        }
+        byte[] data = source[0] == null ? null : encode(source[0]);
+        if (hash == null) {
+            hash = hash(plugin);
+        }
+
+        if (data != null && hash != null) {
+            entries.put(key, new Entry(size, modified, hash, data));
+            dirty = true;
+        } else if (entries.remove(key) != null) {
+            dirty = true;
+        }
+        return description;
+    }
+
+    /**
+     * Gets the number of descriptions served from the cache
+     *
+     * @return Number of hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of descriptions that had to be read from the plugin
+     * file
+     *
+     * @return Number of misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Writes the cache to its file if it changed, dropping entries of
+     * plugin files that no longer exist
+     *
+     * @throws IOException if the cache cannot be written
+     */
+    public synchronized void save() throws IOException {
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+            if (!new File(it.next()).isFile()) {
+                it.remove();
+                dirty = true;
+            }
+        }
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        File temp = new File(parent, file.getName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Entry> snapshot = new LinkedHashMap<String, Entry>(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue().size);
+                out.writeLong(entry.getValue().modified);
+                out.writeShort(entry.getValue().hash.length);
+                out.write(entry.getValue().hash);
+                out.writeInt(entry.getValue().data.length);
+                out.write(entry.getValue().data);
+            }
+        } finally {
+            out.close();
+        }
+
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private void read() throws IOException {
+        // Read whole, so every length in the file can be checked against the
+        // bytes that are left before anything is allocated
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.toByteArray(file)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a plugin description cache of this version");
+        }
+        int count = readLength(in);
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            long size = in.readLong();
+            long modified = in.readLong();
+            byte[] hash = new byte[in.readUnsignedShort()];
+            in.readFully(hash);
+            byte[] data = new byte[readLength(in)];
+            in.readFully(data);
+            entries.put(key, new Entry(size, modified, hash, data));
+        }
+    }
+
+    /**
+     * Reads a length or count from a stream over a byte array, which cannot
+     * be larger than the number of bytes left.
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    private static String key(File plugin) {
+        try {
+            return plugin.getCanonicalPath();
+        } catch (IOException ex) {
+            return plugin.getAbsolutePath();
+        }
+    }
+
+    private static byte[] hash(File plugin) {
+        try {
+            return Files.asByteSource(plugin).hash(Hashing.sha256()).asBytes();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a parsed plugin.yml, or returns null if it contains a value
+     * that cannot be encoded.
+     */
+    private static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            if (!write(out, value)) {
+                return null;
+            }
+            out.flush();
+        } catch (IOException ex) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof PluginAwareness.Flags) {
+            out.writeByte(AWARENESS);
+            writeString(out, ((PluginAwareness.Flags) value).name());
+        } else if (value instanceof List || value instanceof Set) {
+            out.writeByte(value instanceof List ? LIST : SET);
+            out.writeInt(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                if (!write(out, element)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!write(out, entry.getKey()) || !write(out, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object decode(byte[] data) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(data)), 0);
+    }
+
+    private static Object read(DataInputStream in, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Values nested too deeply");
+        }
+        int type = in.readUnsignedByte();
+        switch (type) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case BOOLEAN:
+            return in.readBoolean();
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return in.readDouble();
+        case BIG_INTEGER:
+            return new BigInteger(readString(in));
+        case AWARENESS:
+            try {
+                return PluginAwareness.Flags.valueOf(readString(in));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex);
+            }
+        case LIST:
+        case SET: {
+            int size = readLength(in);
+            Collection<Object> collection = type == LIST ? new ArrayList<Object>(size) : new LinkedHashSet<Object>();
+            for (int i = 0; i < size; i++) {
+                collection.add(read(in, depth + 1));
+            }
+            return collection;
+        }
+        case MAP: {
+            int size = readLength(in);
+            Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+            for (int i = 0; i < size; i++) {
+                map.put(read(in, depth + 1), read(in, depth + 1));
+            }
+            return map;
+        }
+        default:
+            throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] hash;
+        private final byte[] data;
+
+        private Entry(long size, long modified, byte[] hash, byte[] data) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.data = data;
+        }
+    }
+}
@@ -201,6 +201,8 @@ public final class PluginDescriptionFile {
             });
         }
     };
+    // Set while PluginDescriptionCache reads a description on a miss
+    private static final ThreadLocal<Map<?, ?>[]> CAPTURE = new ThreadLocal<Map<?, ?>[]>();
     String rawName = null;
     private String name = null;
     private String main = null;
@@ -237,6 +239,14 @@ public final class PluginDescriptionFile {
         loadMap(asMap(YAML.get().load(reader)));
     }
 
+    /**
+     * Loads a PluginDescriptionFile from an already parsed plugin.yml, as
+     * stored by {@link PluginDescriptionCache}.
+     */
+    PluginDescriptionFile(final Map<?, ?> map) throws InvalidDescriptionException {
+        loadMap(map);
+    }
+
     /**
      * 构造一个新的PluginDescriptionFile.
      * <p>
@@ -882,6 +892,10 @@ public final class PluginDescriptionFile {
     }
 
     private void loadMap(Map<?, ?> map) throws InvalidDescriptionException {
+        Map<?, ?>[] capture = CAPTURE.get();
+        if (capture != null) {
+            capture[0] = map;
+        }
         try {
             name = rawName = map.get("name").toString();
 
@@ -1092,6 +1106,25 @@ public final class PluginDescriptionFile {
         return map;
     }
 
+    /**
+     * Starts capturing the parsed plugin.yml of the descriptions loaded on
+     * the current thread, so {@link PluginDescriptionCache} can store it
+     * without every description keeping its map. Must be followed by
+     * {@link #stopCapture()}.
+     *
+     * @return A slot holding the map of the last description loaded until
+     *     the capture is stopped
+     */
+    static Map<?, ?>[] startCapture() {
+        Map<?, ?>[] capture = new Map<?, ?>[1];
+        CAPTURE.set(capture);
+        return capture;
+    }
+
+    static void stopCapture() {
+        CAPTURE.remove();
+    }
+
     private Map<?, ?> asMap(Object object) throws InvalidDescriptionException {
         if (object instanceof Map) {
             return (Map<?, ?>) object;
@@ -1,11 +1,18 @@
 package org.bukkit.plugin;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
+import org.apache.commons.lang.Validate;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.EventRegion;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockEvent;
 import org.bukkit.permissions.Permissible;
 import org.bukkit.permissions.Permission;
 
@@ -118,6 +125,54 @@ public interface PluginManager {
      */
     public void callEvent(Event event) throws IllegalStateException;
 
+    /**
+     * Calls an event that is only constructed when at least one listener is
+     * registered for it
+     * <p>
+     * This lets the server skip allocating high volume events nobody
+     * listens to. The supplier is invoked at most once, on the calling
+     * thread.
+     * <p>
+     * The default implementation always constructs the event and passes it
+     * to {@link #callEvent(Event)}.
+     *
+     * @param <T> Type of the event
+     * @param event Event type to call, used to look up its handler list
+     * @param supplier Constructs the event details
+     * @return The event after it was called, or null if it was never
+     *     constructed because nothing listens to it
+     * @throws IllegalStateException Thrown when an asynchronous event is
+     *     fired from synchronous code.
+     */
+    public default <T extends Event> T callEvent(Class<T> event, Supplier<? extends T> supplier) throws IllegalStateException {
+        T instance = supplier.get();
+        callEvent(instance);
+        return instance;
+    }
+
+    /**
+     * Calls a list of events, such as the chunk loads of a teleport or the
+     * block changes of an explosion, in order
+     * <p>
+     * The handler list of consecutive events of the same type is resolved
+     * once. When every handler of those events is
+     * {@linkplain org.bukkit.event.EventHandler#batchable() batchable}, each
+     * handler receives all of them before the next handler runs. Events are
+     * still cancelled individually.
+     * <p>
+     * The default implementation passes each event to
+     * {@link #callEvent(Event)}.
+     *
+     * @param events Events to call
+     * @throws IllegalStateException Thrown when an asynchronous event is
+     *     fired from synchronous code.
+     */
+    public default void callEvents(List<? extends Event> events) throws IllegalStateException {
+        for (Event event : events) {
+            callEvent(event);
+        }
+    }
+
     /**
      * Registers all the events in the given listener class
      *
@@ -126,6 +181,62 @@ public interface PluginManager {
      */
     public void registerEvents(Listener listener, Plugin plugin);
 
+    /**
+     * Registers all the events in the given listener classes at once
+     * <p>
+     * This is cheaper than calling {@link #registerEvents(Listener, Plugin)}
+     * for each listener when many listener objects are created at runtime,
+     * for example one per arena. The default implementation registers them
+     * one by one.
+     *
+     * @param listeners Listeners to register
+     * @param plugin Plugin to register
+     */
+    public default void registerEvents(Collection<? extends Listener> listeners, Plugin plugin) {
+        for (Listener listener : listeners) {
+            registerEvents(listener, plugin);
+        }
+    }
+
+    /**
+     * Registers all the events in the given listener class, scoped to a
+     * region
+     * <p>
+     * The listener only receives block events inside the region. Scoped
+     * listeners are indexed by chunk, so unlike a global listener that
+     * checks the location itself, they add nothing to the cost of block
+     * events elsewhere. Within a priority, scoped listeners run after the
+     * global ones.
+     * <p>
+     * The default implementation registers the listener globally, with an
+     * executor that skips block events outside the region.
+     *
+     * @param listener Listener to register, listening to block events only
+     * @param plugin Plugin to register
+     * @param region Region to scope the listener to
+     * @throws IllegalArgumentException Thrown when the listener handles an
+     *     event that is not a block event
+     */
+    public default void registerEvents(Listener listener, Plugin plugin, final EventRegion region) {
+        Validate.notNull(plugin, "Plugin cannot be null");
+        Validate.notNull(region, "Region cannot be null");
+
+        Map<Class<? extends Event>, Set<RegisteredListener>> registrations = plugin.getPluginLoader().createRegisteredListeners(listener, plugin);
+        for (Class<? extends Event> event : registrations.keySet()) {
+            Validate.isTrue(BlockEvent.class.isAssignableFrom(event), "Only block events can be scoped to a region, " + listener.getClass().getName() + " listens to " + event.getName());
+        }
+
+        for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : registrations.entrySet()) {
+            for (final RegisteredListener registration : entry.getValue()) {
+                registerEvent(entry.getKey(), listener, registration.getPriority(), (scoped, event) -> {
+                    if (event instanceof BlockEvent && region.contains(((BlockEvent) event).getBlock())) {
+                        registration.callEvent(event);
+                    }
+                }, plugin);
+            }
+        }
+    }
+
     /**
      * Registers the specified executor to the given event class
      *
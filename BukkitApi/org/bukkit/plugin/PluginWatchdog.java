@@ -0,0 +1,202 @@
+package org.bukkit.plugin;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * Watches a single thread, normally the primary server thread, for plugin
+ * code that runs longer than a configured budget.
+ * <p>
+ * The watched thread brackets plugin code with {@link #enter(Plugin, Object)}
+ * and {@link #exit()}. {@link SimplePluginManager} does this around every
+ * listener call while a watchdog is installed, and scheduler implementations
+ * should do the same around task execution. A daemon thread polls the
+ * innermost section; once it exceeds the budget, the watched thread's stack
+ * is sampled and logged together with the plugin and what it was doing.
+ * <p>
+ * Reports are rate limited. At most one report is logged per report
+ * interval and further slow sections are only counted.
+ */
+public final class PluginWatchdog {
+    private static final int MAX_FRAMES = 64;
+
+    private final Thread watched;
+    private final Logger logger;
+    private final long budget;
+    private final long reportInterval;
+    private final Deque<Section> sections = new ArrayDeque<Section>();
+    private final AtomicLong reports = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private volatile Section current;
+    private volatile Thread thread;
+    private long lastReport;
+
+    /**
+     * Creates a watchdog for the given thread
+     *
+     * @param watched Thread to watch, usually the primary server thread
+     * @param logger Logger to write reports to
+     * @param budget How long a section may run before it is reported
+     * @param reportInterval Minimum time between two reports
+     * @param unit Unit of budget and reportInterval
+     */
+    public PluginWatchdog(Thread watched, Logger logger, long budget, long reportInterval, TimeUnit unit) {
+        Validate.notNull(watched, "Watched thread cannot be null");
+        Validate.notNull(logger, "Logger cannot be null");
+        Validate.isTrue(budget > 0, "Budget must be positive");
+        Validate.isTrue(reportInterval >= 0, "Report interval cannot be negative");
+
+        this.watched = watched;
+        this.logger = logger;
+        this.budget = unit.toNanos(budget);
+        this.reportInterval = unit.toNanos(reportInterval);
+        this.lastReport = System.nanoTime() - this.reportInterval;
+    }
+
+    /**
+     * Starts the watchdog thread. Has no effect if it is already running.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            public void run() {
+                watch();
+            }
+        }, "Plugin Watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the watchdog thread
+     */
+    public synchronized void shutdown() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Marks the start of plugin code on the calling thread. Calls from any
+     * thread other than the watched one are ignored.
+     *
+     * @param plugin Plugin whose code is about to run
+     * @param subject What the code handles, such as the event class or task
+     * @return true if the section is watched and {@link #exit()} must be
+     *     called once it is over
+     */
+    public boolean enter(Plugin plugin, Object subject) {
+        if (Thread.currentThread() != watched) {
+            return false;
+        }
+        Section section = new Section(plugin, subject, System.nanoTime());
+        sections.push(section);
+        current = section;
+        return true;
+    }
+
+    /**
+     * Marks the end of the innermost section entered on the watched thread
+     */
+    public void exit() {
+        sections.pop();
+        current = sections.peek();
+    }
+
+    /**
+     * Gets how many slow sections were logged
+     *
+     * @return Number of reports
+     */
+    public long getReportCount() {
+        return reports.get();
+    }
+
+    /**
+     * Gets how many slow sections were not logged because of the rate limit
+     *
+     * @return Number of suppressed reports
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    private void watch() {
+        long poll = Math.max(TimeUnit.MILLISECONDS.toNanos(1), budget / 2);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(poll);
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            Section section = current;
+            if (section == null || section.reported) {
+                continue;
+            }
+            long now = System.nanoTime();
+            if (now - section.start < budget) {
+                continue;
+            }
+
+            section.reported = true;
+            if (now - lastReport < reportInterval) {
+                suppressed.incrementAndGet();
+                continue;
+            }
+
+            StackTraceElement[] stack = watched.getStackTrace();
+            if (current != section) {
+                // Finished while we were sampling, the stack belongs to someone else
+                continue;
+            }
+            lastReport = now;
+            reports.incrementAndGet();
+            report(section, now, stack);
+        }
+    }
+
+    private void report(Section section, long now, StackTraceElement[] stack) {
+        String plugin = section.plugin == null ? "unknown plugin" : section.plugin.getDescription().getFullName();
+        Object subject = section.subject instanceof Class ? ((Class<?>) section.subject).getName() : section.subject;
+
+        StringBuilder message = new StringBuilder();
+        message.append(plugin).append(" has been handling ").append(subject)
+                .append(" for ").append(TimeUnit.NANOSECONDS.toMillis(now - section.start)).append("ms")
+                .append(" (budget ").append(TimeUnit.NANOSECONDS.toMillis(budget)).append("ms");
+        long skipped = suppressed.get();
+        if (skipped != 0) {
+            message.append(", ").append(skipped).append(" slow sections suppressed so far");
+        }
+        message.append("). Sampled stack of ").append(watched.getName()).append(':');
+        for (int i = 0; i < stack.length && i < MAX_FRAMES; i++) {
+            message.append("\n\tat ").append(stack[i]);
+        }
+        if (stack.length > MAX_FRAMES) {
+            message.append("\n\t... ").append(stack.length - MAX_FRAMES).append(" more");
+        }
+        logger.log(Level.WARNING, message.toString());
+    }
+
+    private static final class Section {
+        private final Plugin plugin;
+        private final Object subject;
+        private final long start;
+        private volatile boolean reported;
+
+        private Section(Plugin plugin, Object subject, long start) {
+            this.plugin = plugin;
+            this.subject = subject;
+            this.start = start;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.bukkit.plugin;
 
+import org.apache.commons.lang.Validate;
 import org.bukkit.event.*;
 
 /**
@@ -11,13 +12,34 @@ public class RegisteredListener {
     private final Plugin plugin;
     private final EventExecutor executor;
     private final boolean ignoreCancelled;
+    private final boolean batchable;
+    private final EventFilter filter;
+    private final boolean asyncObserver;
+    private EventRegion region;
+    volatile ListenerFailures failures;
 
     public RegisteredListener(final Listener listener, final EventExecutor executor, final EventPriority priority, final Plugin plugin, final boolean ignoreCancelled) {
+        this(listener, executor, priority, plugin, ignoreCancelled, false);
+    }
+
+    public RegisteredListener(final Listener listener, final EventExecutor executor, final EventPriority priority, final Plugin plugin, final boolean ignoreCancelled, final boolean batchable) {
+        this(listener, executor, priority, plugin, ignoreCancelled, batchable, null);
+    }
+
+    public RegisteredListener(final Listener listener, final EventExecutor executor, final EventPriority priority, final Plugin plugin, final boolean ignoreCancelled, final boolean batchable, final EventFilter filter) {
+        this(listener, executor, priority, plugin, ignoreCancelled, batchable, filter, false);
+    }
+
+    public RegisteredListener(final Listener listener, final EventExecutor executor, final EventPriority priority, final Plugin plugin, final boolean ignoreCancelled, final boolean batchable, final EventFilter filter, final boolean asyncObserver) {
+        Validate.isTrue(!asyncObserver || priority == EventPriority.MONITOR, "Asynchronous observers must use MONITOR priority");
         this.listener = listener;
         this.priority = priority;
         this.plugin = plugin;
         this.executor = executor;
         this.ignoreCancelled = ignoreCancelled;
+        this.batchable = batchable;
+        this.filter = filter;
+        this.asyncObserver = asyncObserver;
     }
 
     /**
@@ -70,4 +92,101 @@ public class RegisteredListener {
     public boolean isIgnoringCancelled() {
         return ignoreCancelled;
     }
+
+    /**
+     * Whether this listener may receive a whole batch of events before the
+     * next listener runs
+     *
+     * @return True when batched calls are allowed
+     * @see PluginManager#callEvents(java.util.List)
+     */
+    public boolean isBatchable() {
+        return batchable;
+    }
+
+    /**
+     * Whether this listener observes events on a worker thread after they
+     * have been dispatched, instead of being called inline
+     *
+     * @return True when this is an asynchronous observer
+     * @see EventHandler#asyncObserver()
+     */
+    public boolean isAsyncObserver() {
+        return asyncObserver;
+    }
+
+    /**
+     * Gets the filter that selects the events this listener is called for.
+     * The filter is applied by {@link HandlerList#getRegisteredListeners(Event)}
+     * when the event is dispatched, not by {@link #callEvent(Event)}.
+     *
+     * @return Filter of this listener, or null if it receives every event
+     */
+    public EventFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the region this listener is scoped to. Scoped listeners only
+     * receive block events inside their region.
+     *
+     * @return Region of this listener, or null if it is not scoped
+     * @see PluginManager#registerEvents(Listener, Plugin, EventRegion)
+     */
+    public EventRegion getRegion() {
+        return region;
+    }
+
+    void setRegion(EventRegion region) {
+        this.region = region;
+    }
+
+    /**
+     * Gets how many times this listener has thrown an exception
+     *
+     * @return Number of failed calls
+     */
+    public long getFailureCount() {
+        ListenerFailures failures = this.failures;
+        return failures == null ? 0 : failures.getFailures();
+    }
+
+    /**
+     * Gets how many failures of this listener were not logged because an
+     * identical failure had been logged recently
+     *
+     * @return Number of suppressed failures
+     */
+    public long getSuppressedFailureCount() {
+        ListenerFailures failures = this.failures;
+        return failures == null ? 0 : failures.getSuppressed();
+    }
+
+    /**
+     * Gets how many calls to this listener were skipped while it was
+     * suspended for failing repeatedly
+     *
+     * @return Number of skipped calls
+     */
+    public long getSkippedCallCount() {
+        ListenerFailures failures = this.failures;
+        return failures == null ? 0 : failures.getSkipped();
+    }
+
+    /**
+     * Whether this listener is currently suspended for failing repeatedly
+     *
+     * @return True when calls to this listener are being skipped
+     */
+    public boolean isSuspended() {
+        ListenerFailures failures = this.failures;
+        return failures != null && failures.isSuspended();
+    }
+
+    synchronized ListenerFailures getFailures() {
+        if (failures == null) {
+            failures = new ListenerFailures();
+        }
+        return failures;
+    }
 }
@@ -1,19 +1,29 @@
 package org.bukkit.plugin;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -23,16 +33,21 @@ import org.bukkit.Server;
 import org.bukkit.command.Command;
 import org.bukkit.command.PluginCommandYamlParser;
 import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.event.DispatchAware;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.EventRegion;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockEvent;
 import org.bukkit.permissions.Permissible;
 import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.util.FileUtil;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * Handles all plugin management from the Server
@@ -40,8 +55,8 @@ import com.google.common.collect.ImmutableSet;
 public final class SimplePluginManager implements PluginManager {
     private final Server server;
     private final Map<Pattern, PluginLoader> fileAssociations = new HashMap<Pattern, PluginLoader>();
-    private final List<Plugin> plugins = new ArrayList<Plugin>();
-    private final Map<String, Plugin> lookupNames = new HashMap<String, Plugin>();
+    private final List<Plugin> plugins = new CopyOnWriteArrayList<Plugin>();
+    private final Map<String, Plugin> lookupNames = new ConcurrentHashMap<String, Plugin>();
     private File updateDirectory;
     private final SimpleCommandMap commandMap;
     private final Map<String, Permission> permissions = new HashMap<String, Permission>();
@@ -49,6 +64,18 @@ public final class SimplePluginManager implements PluginManager {
     private final Map<String, Map<Permissible, Boolean>> permSubs = new HashMap<String, Map<Permissible, Boolean>>();
     private final Map<Boolean, Map<Permissible, Boolean>> defSubs = new HashMap<Boolean, Map<Permissible, Boolean>>();
     private boolean useTimings = false;
+    private volatile boolean lockFreeEvents = false;
+    private volatile PluginWatchdog watchdog = null;
+    private volatile EventTraceRecorder traceRecorder = null;
+    private volatile PluginDescriptionCache descriptionCache = null;
+    private volatile PluginClassProfile classProfile = null;
+    private volatile int descriptionScanThreads = Math.min(8, Runtime.getRuntime().availableProcessors());
+    private volatile int loadThreads = 1;
+    private volatile EventObserverPool observerPool = null;
+    private volatile long failureLogInterval = TimeUnit.SECONDS.toNanos(10);
+    private volatile int breakerThreshold = 0;
+    private volatile long breakerCooldown = 0;
+    private final Map<Class<? extends Event>, LazyEventType> lazyEvents = new ConcurrentHashMap<Class<? extends Event>, LazyEventType>();
 
     public SimplePluginManager(Server instance, SimpleCommandMap commandMap) {
         server = instance;
@@ -88,6 +115,10 @@ public final class SimplePluginManager implements PluginManager {
         Pattern[] patterns = instance.getPluginFileFilters();
 
         synchronized (this) {
+            if (instance instanceof CachingPluginLoader) {
+                ((CachingPluginLoader) instance).setDescriptionCache(descriptionCache);
+                ((CachingPluginLoader) instance).setClassProfile(classProfile);
+            }
             for (Pattern pattern : patterns) {
                 fileAssociations.put(pattern, instance);
             }
@@ -96,6 +127,14 @@ public final class SimplePluginManager implements PluginManager {
 
     /**
      * Loads the plugins contained within the specified directory
+     * <p>
+     * Plugins are loaded in waves along their {@code depend},
+     * {@code softdepend} and {@code loadbefore} relations. The plugins of one
+     * wave do not wait for each other and may be constructed at the same
+     * time, see {@link #setLoadThreads(int)}. All descriptions are read
+     * before that, see {@link #setDescriptionScanThreads(int)}. The returned
+     * plugins are ordered by wave and then by name, so calling
+     * {@link Plugin#onLoad()} in that order is deterministic.
      *
      * @param directory Directory to check for plugins
      * @return A list of all plugins loaded
@@ -104,6 +143,26 @@ public final class SimplePluginManager implements PluginManager {
         Validate.notNull(directory, "Directory cannot be null");
         Validate.isTrue(directory.isDirectory(), "Directory must be a directory");
 
+        ExecutorService executor = null;
+        int threads = Math.max(descriptionScanThreads, loadThreads);
+        if (threads > 1) {
+            final AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "Plugin Loader #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        try {
+            return loadPlugins(directory, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private Plugin[] loadPlugins(File directory, ExecutorService executor) {
         List<Plugin> result = new ArrayList<Plugin>();
         Set<Pattern> filters = fileAssociations.keySet();
 
@@ -112,11 +171,11 @@ public final class SimplePluginManager implements PluginManager {
         }
 
         Map<String, File> plugins = new HashMap<String, File>();
-        Set<String> loadedPlugins = new HashSet<String>();
-        Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
-        Map<String, Collection<String>> softDependencies = new HashMap<String, Collection<String>>();
+        Map<String, PluginDescriptionFile> descriptions = new HashMap<String, PluginDescriptionFile>();
 
         // This is where it figures out all possible plugins
+        List<File> files = new ArrayList<File>();
+        List<LoadTask<PluginDescriptionFile>> scans = new ArrayList<LoadTask<PluginDescriptionFile>>();
         for (File file : directory.listFiles()) {
             PluginLoader loader = null;
             for (Pattern filter : filters) {
@@ -128,9 +187,18 @@ public final class SimplePluginManager implements PluginManager {
 
             if (loader == null) continue;
 
+            final PluginLoader fileLoader = loader;
+            files.add(file);
+            scans.add(new LoadTask<PluginDescriptionFile>(() -> readDescription(file, fileLoader)));
+        }
+        runTasks(executor, descriptionScanThreads, scans);
+
+        // Descriptions are checked in directory order, whichever finished first
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
             PluginDescriptionFile description = null;
             try {
-                description = loader.getPluginDescription(file);
+                description = scans.get(i).get(InvalidDescriptionException.class);
                 String name = description.getName();
                 if (name.equalsIgnoreCase("bukkit") || name.equalsIgnoreCase("minecraft") || name.equalsIgnoreCase("mojang")) {
                     server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "': Restricted Name");
@@ -155,145 +223,141 @@ public final class SimplePluginManager implements PluginManager {
                 ));
             }
 
-            Collection<String> softDependencySet = description.getSoftDepend();
-            if (softDependencySet != null && !softDependencySet.isEmpty()) {
-                if (softDependencies.containsKey(description.getName())) {
-                    // Duplicates do not matter, they will be removed together if applicable
-                    softDependencies.get(description.getName()).addAll(softDependencySet);
-                } else {
-                    softDependencies.put(description.getName(), new LinkedList<String>(softDependencySet));
-                }
-            }
+            descriptions.put(description.getName(), description);
+        }
 
-            Collection<String> dependencySet = description.getDepend();
-            if (dependencySet != null && !dependencySet.isEmpty()) {
-                dependencies.put(description.getName(), new LinkedList<String>(dependencySet));
+        PluginDependencyGraph graph = new PluginDependencyGraph(descriptions);
+        List<PluginDependencyGraph.Step> wave;
+        while (!(wave = graph.nextWave()).isEmpty()) {
+            List<LoadTask<Plugin>> constructions = new ArrayList<LoadTask<Plugin>>(wave.size());
+            for (PluginDependencyGraph.Step step : wave) {
+                if (!step.canLoad()) {
+                    continue;
+                }
+                final File file = plugins.get(step.getName());
+                if (!step.getIgnoredSoftDependencies().isEmpty()) {
+                    server.getLogger().log(Level.WARNING, String.format(
+                        "Loading '%s' in folder '%s' before its soft dependencies %s to break a dependency cycle",
+                        file.getPath(),
+                        directory.getPath(),
+                        step.getIgnoredSoftDependencies()
+                    ));
+                }
+                constructions.add(new LoadTask<Plugin>(() -> constructPlugin(file)));
             }
-
-            Collection<String> loadBeforeSet = description.getLoadBefore();
-            if (loadBeforeSet != null && !loadBeforeSet.isEmpty()) {
-                for (String loadBeforeTarget : loadBeforeSet) {
-                    if (softDependencies.containsKey(loadBeforeTarget)) {
-                        softDependencies.get(loadBeforeTarget).add(description.getName());
-                    } else {
-                        // softDependencies is never iterated, so 'ghost' plugins aren't an issue
-                        Collection<String> shortSoftDependency = new LinkedList<String>();
-                        shortSoftDependency.add(description.getName());
-                        softDependencies.put(loadBeforeTarget, shortSoftDependency);
+            runTasks(executor, loadThreads, constructions);
+
+            // Results are registered in wave order, whichever finished first
+            int construction = 0;
+            for (PluginDependencyGraph.Step step : wave) {
+                File file = plugins.get(step.getName());
+                boolean loaded = false;
+
+                if (step.getCycle() != null) {
+                    server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "': circular dependency detected between " + step.getCycle());
+                } else if (step.getMissingDependency() != null) {
+                    server.getLogger().log(
+                        Level.SEVERE,
+                        "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "'",
+                        new UnknownDependencyException(step.getMissingDependency()));
+                } else {
+                    try {
+                        Plugin plugin = constructions.get(construction++).get(InvalidPluginException.class);
+                        if (plugin != null) {
+                            registerPlugin(plugin);
+                            result.add(plugin);
+                            loaded = true;
+                        }
+                    } catch (InvalidPluginException ex) {
+                        server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "'", ex);
                     }
                 }
+
+                graph.resolved(step.getName(), loaded);
             }
         }
 
-        while (!plugins.isEmpty()) {
-            boolean missingDependency = true;
-            Iterator<Map.Entry<String, File>> pluginIterator = plugins.entrySet().iterator();
-
-            while (pluginIterator.hasNext()) {
-                Map.Entry<String, File> entry = pluginIterator.next();
-                String plugin = entry.getKey();
-
-                if (dependencies.containsKey(plugin)) {
-                    Iterator<String> dependencyIterator = dependencies.get(plugin).iterator();
-
-                    while (dependencyIterator.hasNext()) {
-                        String dependency = dependencyIterator.next();
-
-                        // Dependency loaded
-                        if (loadedPlugins.contains(dependency)) {
-                            dependencyIterator.remove();
-
-                        // We have a dependency not found
-                        } else if (!plugins.containsKey(dependency)) {
-                            missingDependency = false;
-                            pluginIterator.remove();
-                            softDependencies.remove(plugin);
-                            dependencies.remove(plugin);
-
-                            server.getLogger().log(
-                                Level.SEVERE,
-                                "Could not load '" + entry.getValue().getPath() + "' in folder '" + directory.getPath() + "'",
-                                new UnknownDependencyException(dependency));
-                            break;
-                        }
-                    }
-
-                    if (dependencies.containsKey(plugin) && dependencies.get(plugin).isEmpty()) {
-                        dependencies.remove(plugin);
-                    }
-                }
-                if (softDependencies.containsKey(plugin)) {
-                    Iterator<String> softDependencyIterator = softDependencies.get(plugin).iterator();
+        PluginDescriptionCache cache = descriptionCache;
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException ex) {
+                server.getLogger().log(Level.WARNING, "Could not save plugin description cache", ex);
+            }
+        }
 
-                    while (softDependencyIterator.hasNext()) {
-                        String softDependency = softDependencyIterator.next();
+        return result.toArray(new Plugin[0]);
+    }
 
-                        // Soft depend is no longer around
-                        if (!plugins.containsKey(softDependency)) {
-                            softDependencyIterator.remove();
-                        }
-                    }
+    private PluginDescriptionFile readDescription(File file, PluginLoader loader) throws InvalidDescriptionException {
+        PluginDescriptionCache cache = descriptionCache;
+        return cache == null ? loader.getPluginDescription(file) : cache.getDescription(file, loader);
+    }
 
-                    if (softDependencies.get(plugin).isEmpty()) {
-                        softDependencies.remove(plugin);
-                    }
-                }
-                if (!(dependencies.containsKey(plugin) || softDependencies.containsKey(plugin)) && plugins.containsKey(plugin)) {
-                    // We're clear to load, no more soft or hard dependencies left
-                    File file = plugins.get(plugin);
-                    pluginIterator.remove();
-                    missingDependency = false;
+    /**
+     * Runs the tasks on at most the given number of the pool's threads, each
+     * taking the next task until none are left.
+     */
+    private void runTasks(ExecutorService executor, int threads, final List<? extends Runnable> tasks) {
+        threads = Math.min(threads, tasks.size());
+        if (executor == null || threads <= 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
 
-                    try {
-                        result.add(loadPlugin(file));
-                        loadedPlugins.add(plugin);
-                        continue;
-                    } catch (InvalidPluginException ex) {
-                        server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "'", ex);
-                    }
+        final AtomicInteger next = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                int task;
+                while ((task = next.getAndIncrement()) < tasks.size()) {
+                    tasks.get(task).run();
                 }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                Uninterruptibles.getUninterruptibly(future);
+            } catch (ExecutionException ex) {
+                // Failures are kept by the task itself
             }
+        }
+    }
 
-            if (missingDependency) {
-                // We now iterate over plugins until something loads
-                // This loop will ignore soft dependencies
-                pluginIterator = plugins.entrySet().iterator();
-
-                while (pluginIterator.hasNext()) {
-                    Map.Entry<String, File> entry = pluginIterator.next();
-                    String plugin = entry.getKey();
+    /**
+     * One step of loading plugins, such as reading a description, that may
+     * run on another thread. The outcome is kept until it is checked on the
+     * calling thread, in order.
+     */
+    private static final class LoadTask<T> implements Runnable {
+        private final Callable<T> task;
+        private T result;
+        private Throwable failure;
 
-                    if (!dependencies.containsKey(plugin)) {
-                        softDependencies.remove(plugin);
-                        missingDependency = false;
-                        File file = entry.getValue();
-                        pluginIterator.remove();
+        private LoadTask(Callable<T> task) {
+            this.task = task;
+        }
 
-                        try {
-                            result.add(loadPlugin(file));
-                            loadedPlugins.add(plugin);
-                            break;
-                        } catch (InvalidPluginException ex) {
-                            server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "'", ex);
-                        }
-                    }
-                }
-                // We have no plugins left without a depend
-                if (missingDependency) {
-                    softDependencies.clear();
-                    dependencies.clear();
-                    Iterator<File> failedPluginIterator = plugins.values().iterator();
-
-                    while (failedPluginIterator.hasNext()) {
-                        File file = failedPluginIterator.next();
-                        failedPluginIterator.remove();
-                        server.getLogger().log(Level.SEVERE, "Could not load '" + file.getPath() + "' in folder '" + directory.getPath() + "': circular dependency detected");
-                    }
-                }
+        public void run() {
+            try {
+                result = task.call();
+            } catch (Throwable ex) {
+                failure = ex;
             }
         }
 
-        return result.toArray(new Plugin[result.size()]);
+        private <X extends Exception> T get(Class<X> expected) throws X {
+            if (failure == null) {
+                return result;
+            }
+            if (expected.isInstance(failure)) {
+                throw expected.cast(failure);
+            }
+            Throwables.throwIfUnchecked(failure);
+            throw new IllegalStateException(failure);
+        }
     }
 
     /**
@@ -311,6 +375,15 @@ public final class SimplePluginManager implements PluginManager {
     public synchronized Plugin loadPlugin(File file) throws InvalidPluginException, UnknownDependencyException {
         Validate.notNull(file, "File cannot be null");
 
+        Plugin result = constructPlugin(file);
+        if (result != null) {
+            registerPlugin(result);
+        }
+
+        return result;
+    }
+
+    private Plugin constructPlugin(File file) throws InvalidPluginException, UnknownDependencyException {
         checkUpdate(file);
 
         Set<Pattern> filters = fileAssociations.keySet();
@@ -327,14 +400,14 @@ public final class SimplePluginManager implements PluginManager {
             }
         }
 
-        if (result != null) {
-            plugins.add(result);
-            lookupNames.put(result.getDescription().getName(), result);
-        }
-
         return result;
     }
 
+    private synchronized void registerPlugin(Plugin plugin) {
+        plugins.add(plugin);
+        lookupNames.put(plugin.getDescription().getName(), plugin);
+    }
+
     private void checkUpdate(File file) {
         if (updateDirectory == null || !updateDirectory.isDirectory()) {
             return;
@@ -354,12 +427,12 @@ public final class SimplePluginManager implements PluginManager {
      * @param name Name of the plugin to check
      * @return Plugin if it exists, otherwise null
      */
-    public synchronized Plugin getPlugin(String name) {
+    public Plugin getPlugin(String name) {
         return lookupNames.get(name.replace(' ', '_'));
     }
 
-    public synchronized Plugin[] getPlugins() {
-        return plugins.toArray(new Plugin[plugins.size()]);
+    public Plugin[] getPlugins() {
+        return plugins.toArray(new Plugin[0]);
     }
 
     /**
@@ -466,11 +539,66 @@ public final class SimplePluginManager implements PluginManager {
     /**
      * Calls an event with the given details.
      * <p>
-     * This method only synchronizes when the event is not asynchronous.
+     * This method only synchronizes when the event is not asynchronous and
+     * lock-free event dispatch is disabled. When it is enabled, synchronous
+     * events must be called from the primary server thread instead.
      *
      * @param event Event details
+     * @see #useLockFreeEvents(boolean)
      */
     public void callEvent(Event event) {
+        if (event.isAsynchronous() || lockFreeEvents) {
+            checkCaller(event);
+            fireEvent(event);
+        } else {
+            synchronized (this) {
+                fireEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Calls a list of events, resolving the handler list of each run of
+     * events of the same type only once.
+     * <p>
+     * Consecutive events that share a handler list and synchronicity are
+     * dispatched together. If every listener of such a run is
+     * {@linkplain RegisteredListener#isBatchable() batchable}, each listener
+     * receives the whole run before the next listener is called; otherwise
+     * the events are called one after the other. Whether a plugin is enabled
+     * is only checked once per run.
+     *
+     * @param events Events to call, in order
+     */
+    public void callEvents(List<? extends Event> events) {
+        Validate.notNull(events, "Events cannot be null");
+
+        int size = events.size();
+        int start = 0;
+        while (start < size) {
+            Event first = events.get(start);
+            HandlerList handlers = first.getHandlers();
+            boolean async = first.isAsynchronous();
+
+            int end = start + 1;
+            while (end < size && events.get(end).getHandlers() == handlers && events.get(end).isAsynchronous() == async) {
+                end++;
+            }
+
+            List<? extends Event> run = events.subList(start, end);
+            if (async || lockFreeEvents) {
+                checkCaller(first);
+                fireEvents(handlers, run);
+            } else {
+                synchronized (this) {
+                    fireEvents(handlers, run);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void checkCaller(Event event) {
         if (event.isAsynchronous()) {
             if (Thread.holdsLock(this)) {
                 throw new IllegalStateException(event.getEventName() + " cannot be triggered asynchronously from inside synchronized code.");
@@ -478,42 +606,252 @@ public final class SimplePluginManager implements PluginManager {
             if (server.isPrimaryThread()) {
                 throw new IllegalStateException(event.getEventName() + " cannot be triggered asynchronously from primary server thread.");
             }
-            fireEvent(event);
-        } else {
-            synchronized (this) {
-                fireEvent(event);
+        } else if (!server.isPrimaryThread()) {
+            throw new IllegalStateException(event.getEventName() + " cannot be triggered synchronously from outside the primary server thread.");
+        }
+    }
+
+    public <T extends Event> T callEvent(Class<T> event, Supplier<? extends T> supplier) {
+        Validate.notNull(event, "Event cannot be null");
+        Validate.notNull(supplier, "Supplier cannot be null");
+
+        LazyEventType type = lazyEvents.get(event);
+        if (type == null) {
+            type = new LazyEventType(getEventListeners(event));
+            LazyEventType previous = lazyEvents.putIfAbsent(event, type);
+            if (previous != null) {
+                type = previous;
             }
         }
+
+        if (!type.handlers.hasListeners()) {
+            type.skipped.incrementAndGet();
+            return null;
+        }
+
+        T details = supplier.get();
+        callEvent(details);
+        return details;
+    }
+
+    /**
+     * Gets how many times each event type was not constructed by
+     * {@link #callEvent(Class, Supplier)} because nothing listened to it
+     *
+     * @return Map of event types to the number of skipped constructions
+     */
+    public Map<Class<? extends Event>, Long> getSkippedEventCounts() {
+        Map<Class<? extends Event>, Long> counts = new HashMap<Class<? extends Event>, Long>();
+        for (Map.Entry<Class<? extends Event>, LazyEventType> entry : lazyEvents.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().skipped.get());
+        }
+        return counts;
+    }
+
+    /**
+     * Resets the skipped construction counters of all event types
+     */
+    public void resetSkippedEventCounts() {
+        for (LazyEventType type : lazyEvents.values()) {
+            type.skipped.set(0);
+        }
     }
 
     private void fireEvent(Event event) {
         HandlerList handlers = event.getHandlers();
-        RegisteredListener[] listeners = handlers.getRegisteredListeners();
+        RegisteredListener[] listeners = handlers.getRegisteredListeners(event);
+
+        EventTraceRecorder recorder = traceRecorder;
+        if (recorder != null) {
+            fireEventTraced(event, listeners, recorder);
+            return;
+        }
 
+        DispatchAware aware = event instanceof DispatchAware ? (DispatchAware) event : null;
+        EventPriority priority = null;
+        List<Runnable> observers = null;
         for (RegisteredListener registration : listeners) {
             if (!registration.getPlugin().isEnabled()) {
                 continue;
             }
+            if (aware != null && registration.getPriority() != priority) {
+                priority = registration.getPriority();
+                aware.onPriority(priority);
+            }
 
-            try {
-                registration.callEvent(event);
-            } catch (AuthorNagException ex) {
-                Plugin plugin = registration.getPlugin();
-
-                if (plugin.isNaggable()) {
-                    plugin.setNaggable(false);
-
-                    server.getLogger().log(Level.SEVERE, String.format(
-                            "Nag author(s): '%s' of '%s' about the following: %s",
-                            plugin.getDescription().getAuthors(),
-                            plugin.getDescription().getFullName(),
-                            ex.getMessage()
-                            ));
+            observers = callListener(registration, event, observers);
+        }
+        publishObservers(observers);
+    }
+
+    private void fireEventTraced(Event event, RegisteredListener[] listeners, EventTraceRecorder recorder) {
+        long dispatchStart = System.nanoTime();
+        DispatchAware aware = event instanceof DispatchAware ? (DispatchAware) event : null;
+        EventPriority priority = null;
+        List<Runnable> observers = null;
+        for (RegisteredListener registration : listeners) {
+            if (!registration.getPlugin().isEnabled()) {
+                continue;
+            }
+            if (aware != null && registration.getPriority() != priority) {
+                priority = registration.getPriority();
+                aware.onPriority(priority);
+            }
+
+            long start = System.nanoTime();
+            observers = callListener(registration, event, observers);
+            recorder.recordListener(registration, event, start, System.nanoTime() - start);
+        }
+        publishObservers(observers);
+        recorder.recordDispatch(event, dispatchStart, System.nanoTime() - dispatchStart);
+    }
+
+    private void fireEvents(HandlerList handlers, List<? extends Event> events) {
+        RegisteredListener[] listeners = handlers.getRegisteredListeners();
+        if (listeners.length == 0) {
+            return;
+        }
+
+        boolean batchable = true;
+        boolean filtered = false;
+        boolean[] enabled = new boolean[listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            batchable &= listeners[i].isBatchable();
+            filtered |= listeners[i].getFilter() != null || listeners[i].getRegion() != null;
+            enabled[i] = listeners[i].getPlugin().isEnabled();
+        }
+
+        if (filtered || traceRecorder != null || isDispatchAware(events)) {
+            // Filtered and scoped listeners differ from event to event,
+            // traces record every event on its own, and dispatch aware
+            // events follow the priorities one event at a time
+            for (Event event : events) {
+                fireEvent(event);
+            }
+        } else if (batchable) {
+            List<Runnable> observers = null;
+            for (int i = 0; i < listeners.length; i++) {
+                if (!enabled[i]) {
+                    continue;
+                }
+                for (Event event : events) {
+                    observers = callListener(listeners[i], event, observers);
                 }
-            } catch (Throwable ex) {
-                server.getLogger().log(Level.SEVERE, "Could not pass event " + event.getEventName() + " to " + registration.getPlugin().getDescription().getFullName(), ex);
+            }
+            publishObservers(observers);
+        } else {
+            for (Event event : events) {
+                List<Runnable> observers = null;
+                for (int i = 0; i < listeners.length; i++) {
+                    if (enabled[i]) {
+                        observers = callListener(listeners[i], event, observers);
+                    }
+                }
+                publishObservers(observers);
+            }
+        }
+    }
+
+    private static boolean isDispatchAware(List<? extends Event> events) {
+        for (Event event : events) {
+            if (event instanceof DispatchAware) {
+                return true;
             }
         }
+        return false;
+    }
+
+    /**
+     * Calls a listener, or adds the call to the given list if the listener
+     * is an asynchronous observer, so observers are only published once
+     * every other listener has seen the event.
+     *
+     * @return The list of observer calls, created when the first one is added
+     */
+    private List<Runnable> callListener(final RegisteredListener registration, final Event event, List<Runnable> observers) {
+        if (registration.isAsyncObserver()) {
+            if (observers == null) {
+                observers = new ArrayList<Runnable>(2);
+            }
+            observers.add(() -> {
+                if (registration.getPlugin().isEnabled()) {
+                    invokeListener(registration, event);
+                }
+            });
+            return observers;
+        }
+
+        invokeListener(registration, event);
+        return observers;
+    }
+
+    private void publishObservers(List<Runnable> observers) {
+        if (observers == null) {
+            return;
+        }
+        EventObserverPool pool = getObserverPool();
+        for (Runnable observer : observers) {
+            pool.publish(observer);
+        }
+    }
+
+    private void invokeListener(RegisteredListener registration, Event event) {
+        ListenerFailures failures = registration.failures;
+        if (failures != null && failures.isSuspended(System.nanoTime())) {
+            return;
+        }
+
+        PluginWatchdog watchdog = this.watchdog;
+        boolean watched = watchdog != null && watchdog.enter(registration.getPlugin(), event.getClass());
+        try {
+            registration.callEvent(event);
+            if (failures != null) {
+                failures.succeeded();
+            }
+        } catch (AuthorNagException ex) {
+            Plugin plugin = registration.getPlugin();
+
+            if (plugin.isNaggable()) {
+                plugin.setNaggable(false);
+
+                server.getLogger().log(Level.SEVERE, String.format(
+                        "Nag author(s): '%s' of '%s' about the following: %s",
+                        plugin.getDescription().getAuthors(),
+                        plugin.getDescription().getFullName(),
+                        ex.getMessage()
+                        ));
+            }
+        } catch (Throwable ex) {
+            handleFailure(registration, event, ex);
+        } finally {
+            if (watched) {
+                watchdog.exit();
+            }
+        }
+    }
+
+    private void handleFailure(RegisteredListener registration, Event event, Throwable ex) {
+        ListenerFailures failures = registration.getFailures();
+        long now = System.nanoTime();
+        long suppressed = failures.failed(ex, now, failureLogInterval);
+        String plugin = registration.getPlugin().getDescription().getFullName();
+
+        if (suppressed >= 0) {
+            server.getLogger().log(Level.SEVERE, "Could not pass event " + event.getEventName() + " to " + plugin + (suppressed > 0 ? " (" + suppressed + " identical errors suppressed)" : ""), ex);
+        }
+
+        int threshold = breakerThreshold;
+        if (threshold > 0 && failures.getConsecutiveFailures() >= threshold) {
+            long cooldown = breakerCooldown;
+            failures.suspend(now + cooldown);
+            server.getLogger().log(Level.WARNING, String.format(
+                    "Suspending a listener of %s for %s for %dms after %d consecutive failures",
+                    plugin,
+                    event.getEventName(),
+                    TimeUnit.NANOSECONDS.toMillis(cooldown),
+                    failures.getConsecutiveFailures()
+                    ));
+        }
     }
 
     public void registerEvents(Listener listener, Plugin plugin) {
@@ -522,11 +860,65 @@ public final class SimplePluginManager implements PluginManager {
         }
 
         for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : plugin.getPluginLoader().createRegisteredListeners(listener, plugin).entrySet()) {
-            getEventListeners(getRegistrationClass(entry.getKey())).registerAll(entry.getValue());
+            getEventListeners(entry.getKey()).registerAll(entry.getValue());
         }
 
     }
 
+    /**
+     * Registers all the events in the given listeners, grouping the
+     * registrations by handler list so every affected list is only locked
+     * and baked once
+     *
+     * @param listeners Listeners to register
+     * @param plugin Plugin to register
+     */
+    public void registerEvents(Collection<? extends Listener> listeners, Plugin plugin) {
+        Validate.notNull(listeners, "Listeners cannot be null");
+
+        if (!plugin.isEnabled()) {
+            throw new IllegalPluginAccessException("Plugin attempted to register " + listeners + " while not enabled");
+        }
+
+        Map<HandlerList, List<RegisteredListener>> registrations = new LinkedHashMap<HandlerList, List<RegisteredListener>>();
+        for (Listener listener : listeners) {
+            for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : plugin.getPluginLoader().createRegisteredListeners(listener, plugin).entrySet()) {
+                HandlerList handlers = getEventListeners(entry.getKey());
+                List<RegisteredListener> registered = registrations.get(handlers);
+                if (registered == null) {
+                    registered = new ArrayList<RegisteredListener>();
+                    registrations.put(handlers, registered);
+                }
+                registered.addAll(entry.getValue());
+            }
+        }
+
+        for (Map.Entry<HandlerList, List<RegisteredListener>> entry : registrations.entrySet()) {
+            entry.getKey().registerAll(entry.getValue());
+            entry.getKey().bake();
+        }
+    }
+
+    public void registerEvents(Listener listener, Plugin plugin, EventRegion region) {
+        Validate.notNull(region, "Region cannot be null");
+
+        if (!plugin.isEnabled()) {
+            throw new IllegalPluginAccessException("Plugin attempted to register " + listener + " while not enabled");
+        }
+
+        Map<Class<? extends Event>, Set<RegisteredListener>> registrations = plugin.getPluginLoader().createRegisteredListeners(listener, plugin);
+        for (Class<? extends Event> event : registrations.keySet()) {
+            Validate.isTrue(BlockEvent.class.isAssignableFrom(event), "Only block events can be scoped to a region, " + listener.getClass().getName() + " listens to " + event.getName());
+        }
+
+        for (Map.Entry<Class<? extends Event>, Set<RegisteredListener>> entry : registrations.entrySet()) {
+            for (RegisteredListener registration : entry.getValue()) {
+                registration.setRegion(region);
+            }
+            getEventListeners(entry.getKey()).registerAll(entry.getValue());
+        }
+    }
+
     public void registerEvent(Class<? extends Event> event, Listener listener, EventPriority priority, EventExecutor executor, Plugin plugin) {
         registerEvent(event, listener, priority, executor, plugin, false);
     }
@@ -560,29 +952,46 @@ public final class SimplePluginManager implements PluginManager {
         }
     }
 
-    private HandlerList getEventListeners(Class<? extends Event> type) {
-        try {
-            Method method = getRegistrationClass(type).getDeclaredMethod("getHandlerList");
-            method.setAccessible(true);
-            return (HandlerList) method.invoke(null);
-        } catch (Exception e) {
-            throw new IllegalPluginAccessException(e.toString());
+    private static final class LazyEventType {
+        private final HandlerList handlers;
+        private final AtomicLong skipped = new AtomicLong();
+
+        private LazyEventType(HandlerList handlers) {
+            this.handlers = handlers;
         }
     }
 
-    private Class<? extends Event> getRegistrationClass(Class<? extends Event> clazz) {
-        try {
-            clazz.getDeclaredMethod("getHandlerList");
-            return clazz;
-        } catch (NoSuchMethodException e) {
-            if (clazz.getSuperclass() != null
-                    && !clazz.getSuperclass().equals(Event.class)
-                    && Event.class.isAssignableFrom(clazz.getSuperclass())) {
-                return getRegistrationClass(clazz.getSuperclass().asSubclass(Event.class));
-            } else {
-                throw new IllegalPluginAccessException("Unable to find handler list for event " + clazz.getName() + ". Static getHandlerList method required!");
+    private HandlerList getEventListeners(Class<? extends Event> type) {
+        return HANDLER_LISTS.get(type);
+    }
+
+    /**
+     * Caches the handler list of every event class, so registering
+     * listeners does not look up and invoke getHandlerList reflectively
+     * each time. Failed lookups are not cached.
+     */
+    private static final ClassValue<HandlerList> HANDLER_LISTS = new ClassValue<HandlerList>() {
+        @Override
+        protected HandlerList computeValue(Class<?> type) {
+            try {
+                Method method = getRegistrationClass(type.asSubclass(Event.class)).getDeclaredMethod("getHandlerList");
+                method.setAccessible(true);
+                return (HandlerList) method.invoke(null);
+            } catch (Exception e) {
+                throw new IllegalPluginAccessException(e.toString());
+            }
+        }
+    };
+
+    private static Class<? extends Event> getRegistrationClass(Class<? extends Event> clazz) {
+        for (Class<?> type = clazz; type != null && !type.equals(Event.class) && Event.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getName().equals("getHandlerList") && method.getParameterTypes().length == 0) {
+                    return type.asSubclass(Event.class);
+                }
             }
         }
+        throw new IllegalPluginAccessException("Unable to find handler list for event " + clazz.getName() + ". Static getHandlerList method required!");
     }
 
     public Permission getPermission(String name) {
@@ -740,4 +1149,229 @@ public final class SimplePluginManager implements PluginManager {
     public void useTimings(boolean use) {
         useTimings = use;
     }
+
+    /**
+     * Returns whether synchronous events are dispatched without holding the
+     * plugin manager's monitor
+     *
+     * @return True if lock-free event dispatch is used
+     */
+    public boolean useLockFreeEvents() {
+        return lockFreeEvents;
+    }
+
+    /**
+     * Sets whether synchronous events should be dispatched without holding
+     * the plugin manager's monitor.
+     * <p>
+     * The primary server thread becomes the sole owner of synchronous
+     * dispatch, so calling a synchronous event from any other thread will
+     * throw an {@link IllegalStateException} while this is enabled.
+     *
+     * @param use True if lock-free event dispatch should be used
+     */
+    public void useLockFreeEvents(boolean use) {
+        lockFreeEvents = use;
+    }
+
+    /**
+     * Sets how long identical failures of a listener are suppressed after
+     * one has been logged. Failures are identical when the exceptions and
+     * their causes have the same classes and stack traces. Suppressed
+     * failures are counted by {@link RegisteredListener#getSuppressedFailureCount()}.
+     *
+     * @param interval Time to suppress identical failures for, or 0 to log
+     *     every failure
+     * @param unit Unit of the interval
+     */
+    public void setFailureLogInterval(long interval, TimeUnit unit) {
+        Validate.isTrue(interval >= 0, "Interval cannot be negative");
+        failureLogInterval = unit.toNanos(interval);
+    }
+
+    /**
+     * Configures the circuit breaker that suspends a listener after it has
+     * failed a number of times in a row. While suspended the listener is
+     * not called; once the cooldown has passed it is called again, and its
+     * next failure suspends it again.
+     *
+     * @param threshold Consecutive failures before a listener is suspended,
+     *     or 0 to disable the circuit breaker
+     * @param cooldown How long a listener stays suspended; must be positive
+     *     unless the circuit breaker is disabled
+     * @param unit Unit of the cooldown
+     */
+    public void setCircuitBreaker(int threshold, long cooldown, TimeUnit unit) {
+        Validate.isTrue(threshold >= 0, "Threshold cannot be negative");
+        Validate.isTrue(cooldown >= 0, "Cooldown cannot be negative");
+        // Without a cooldown every failure would log another suspension
+        Validate.isTrue(threshold == 0 || cooldown > 0, "Cooldown must be positive");
+        breakerCooldown = unit.toNanos(cooldown);
+        breakerThreshold = threshold;
+    }
+
+    /**
+     * Gets the pool that runs asynchronous observers. A pool with a single
+     * worker, room for 8192 calls and the
+     * {@link EventObserverPool.OverflowPolicy#DROP_NEWEST DROP_NEWEST}
+     * policy is created on first use unless one has been set.
+     *
+     * @return The observer pool
+     * @see org.bukkit.event.EventHandler#asyncObserver()
+     */
+    public EventObserverPool getObserverPool() {
+        EventObserverPool pool = observerPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = observerPool;
+                if (pool == null) {
+                    pool = new EventObserverPool(1, 8192, EventObserverPool.OverflowPolicy.DROP_NEWEST, server.getLogger());
+                    observerPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Sets the pool that runs asynchronous observers. The previous pool is
+     * shut down once it has run the calls it already holds.
+     *
+     * @param pool The new observer pool
+     */
+    public void setObserverPool(EventObserverPool pool) {
+        Validate.notNull(pool, "Pool cannot be null");
+        EventObserverPool previous;
+        synchronized (this) {
+            previous = observerPool;
+            observerPool = pool;
+        }
+        if (previous != null && previous != pool) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Gets the watchdog that reports slow listeners, if one is installed
+     *
+     * @return The installed watchdog, or null
+     */
+    public PluginWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Installs a watchdog that reports listeners exceeding its budget, or
+     * removes it when null is given. The watchdog is not started or stopped
+     * by this method.
+     *
+     * @param watchdog Watchdog to install, or null
+     */
+    public void setWatchdog(PluginWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Sets how many plugin descriptions {@link #loadPlugins(File)} reads at
+     * the same time. Reading one opens the plugin file and parses its
+     * plugin.yml without running any plugin code. Descriptions are still
+     * checked and reported in directory order.
+     *
+     * @param threads Number of threads, or 1 to read them one by one on the
+     *     calling thread
+     */
+    public void setDescriptionScanThreads(int threads) {
+        Validate.isTrue(threads > 0, "Threads must be positive");
+        this.descriptionScanThreads = threads;
+    }
+
+    /**
+     * Sets how many threads {@link #loadPlugins(File)} uses to construct the
+     * plugins of one wave. Outcomes are still registered and reported in a
+     * fixed order.
+     * <p>
+     * This defaults to 1. Constructing a plugin loads its main class and runs
+     * its static initializers and constructor, which many plugins do not
+     * expect to happen off the main thread, so only raise this when all
+     * plugins are known to cope with it.
+     *
+     * @param threads Number of threads, or 1 to construct them one by one on
+     *     the calling thread
+     */
+    public void setLoadThreads(int threads) {
+        Validate.isTrue(threads > 0, "Threads must be positive");
+        this.loadThreads = threads;
+    }
+
+    /**
+     * Gets the cache plugin descriptions are read through, if one is set
+     *
+     * @return The description cache, or null
+     */
+    public PluginDescriptionCache getDescriptionCache() {
+        return descriptionCache;
+    }
+
+    /**
+     * Sets a cache to read plugin descriptions through, or stops using one
+     * when null is given. {@link #loadPlugins(File)} saves the cache once
+     * all plugins are loaded.
+     *
+     * @param cache Cache to use, or null
+     */
+    public synchronized void setDescriptionCache(PluginDescriptionCache cache) {
+        this.descriptionCache = cache;
+        for (PluginLoader loader : fileAssociations.values()) {
+            if (loader instanceof CachingPluginLoader) {
+                ((CachingPluginLoader) loader).setDescriptionCache(cache);
+            }
+        }
+    }
+
+    /**
+     * Gets the profile plugin class loading is recorded to and preloaded
+     * from, if one is set
+     *
+     * @return The class profile, or null
+     */
+    public PluginClassProfile getClassProfile() {
+        return classProfile;
+    }
+
+    /**
+     * Sets a profile to record the classes plugins load while they start,
+     * and to load those classes ahead of time on later starts, or stops
+     * using one when null is given. Only plugin loaders implementing
+     * {@link CachingPluginLoader} use it.
+     *
+     * @param profile Profile to use, or null
+     */
+    public synchronized void setClassProfile(PluginClassProfile profile) {
+        this.classProfile = profile;
+        for (PluginLoader loader : fileAssociations.values()) {
+            if (loader instanceof CachingPluginLoader) {
+                ((CachingPluginLoader) loader).setClassProfile(profile);
+            }
+        }
+    }
+
+    /**
+     * Gets the recorder that traces event dispatches, if one is installed
+     *
+     * @return The installed recorder, or null
+     */
+    public EventTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * Installs a recorder that traces every event dispatch, or stops
+     * tracing when null is given. The previous recorder is not closed by
+     * this method.
+     *
+     * @param recorder Recorder to install, or null
+     */
+    public void setTraceRecorder(EventTraceRecorder recorder) {
+        this.traceRecorder = recorder;
+    }
 }
@@ -2,39 +2,104 @@ package org.bukkit.plugin;
 
 import org.bukkit.event.Event;
 import org.bukkit.event.EventException;
+import org.bukkit.event.EventFilter;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 
 /**
  * Extends RegisteredListener to include timing information
+ * <p>
+ * Both synchronous and asynchronous calls are recorded in a thread-safe
+ * histogram. The time spent per server tick is only tracked for synchronous
+ * calls, and only once the server calls {@link #tick()} once per tick.
  */
 public class TimedRegisteredListener extends RegisteredListener {
-    private int count;
-    private long totalTime;
-    private Class<? extends Event> eventClass;
-    private boolean multiple = false;
+    private static volatile long currentTick;
+
+    private final TimingHistogram histogram = new TimingHistogram();
+    private volatile Class<? extends Event> eventClass;
+    private volatile boolean multiple = false;
+    private long lastTick = -1;
+    private long tickTime;
+    private volatile long worstTickTime;
 
     public TimedRegisteredListener(final Listener pluginListener, final EventExecutor eventExecutor, final EventPriority eventPriority, final Plugin registeredPlugin, final boolean listenCancelled) {
         super(pluginListener, eventExecutor, eventPriority, registeredPlugin, listenCancelled);
     }
 
+    public TimedRegisteredListener(final Listener pluginListener, final EventExecutor eventExecutor, final EventPriority eventPriority, final Plugin registeredPlugin, final boolean listenCancelled, final boolean batchable) {
+        super(pluginListener, eventExecutor, eventPriority, registeredPlugin, listenCancelled, batchable);
+    }
+
+    public TimedRegisteredListener(final Listener pluginListener, final EventExecutor eventExecutor, final EventPriority eventPriority, final Plugin registeredPlugin, final boolean listenCancelled, final boolean batchable, final EventFilter filter) {
+        super(pluginListener, eventExecutor, eventPriority, registeredPlugin, listenCancelled, batchable, filter);
+    }
+
+    public TimedRegisteredListener(final Listener pluginListener, final EventExecutor eventExecutor, final EventPriority eventPriority, final Plugin registeredPlugin, final boolean listenCancelled, final boolean batchable, final EventFilter filter, final boolean asyncObserver) {
+        super(pluginListener, eventExecutor, eventPriority, registeredPlugin, listenCancelled, batchable, filter, asyncObserver);
+    }
+
+    /**
+     * Marks the start of a new server tick. Implementations call this once
+     * per tick from the primary thread.
+     */
+    public static void tick() {
+        currentTick++;
+    }
+
+    /**
+     * Checks whether the server reports ticks through {@link #tick()}, so
+     * the time per tick can be tracked
+     *
+     * @return true once {@link #tick()} has been called
+     */
+    public static boolean isTickTracked() {
+        return currentTick != 0;
+    }
+
     @Override
     public void callEvent(Event event) throws EventException {
-        if (event.isAsynchronous()) {
+        Class<? extends Event> newEventClass = event.getClass();
+        Class<? extends Event> eventClass = this.eventClass;
+        if (eventClass != newEventClass && !(multiple && eventClass.isAssignableFrom(newEventClass))) {
+            updateEventClass(newEventClass);
+        }
+
+        long start = System.nanoTime();
+        try {
             super.callEvent(event);
-            return;
+        } finally {
+            long time = System.nanoTime() - start;
+            histogram.record(time);
+            if (!event.isAsynchronous() && !isAsyncObserver()) {
+                recordTick(time);
+            }
         }
-        count++;
-        Class<? extends Event> newEventClass = event.getClass();
+    }
+
+    private synchronized void updateEventClass(Class<? extends Event> newEventClass) {
         if (this.eventClass == null) {
             this.eventClass = newEventClass;
         } else if (!this.eventClass.equals(newEventClass)) {
             multiple = true;
             this.eventClass = getCommonSuperclass(newEventClass, this.eventClass).asSubclass(Event.class);
         }
-        long start = System.nanoTime();
-        super.callEvent(event);
-        totalTime += System.nanoTime() - start;
+    }
+
+    private void recordTick(long time) {
+        long tick = currentTick;
+        if (tick == 0) {
+            // Without ticks every call would count towards one long tick
+            return;
+        }
+        if (tick != lastTick) {
+            lastTick = tick;
+            tickTime = 0;
+        }
+        tickTime += time;
+        if (tickTime > worstTickTime) {
+            worstTickTime = tickTime;
+        }
     }
 
     private static Class<?> getCommonSuperclass(Class<?> class1, Class<?> class2) {
@@ -48,8 +113,9 @@ public class TimedRegisteredListener extends RegisteredListener {
      * Resets the call count and total time for this listener
      */
     public void reset() {
-        count = 0;
-        totalTime = 0;
+        histogram.reset();
+        worstTickTime = 0;
+        lastTick = -1;
     }
 
     /**
@@ -58,7 +124,7 @@ public class TimedRegisteredListener extends RegisteredListener {
      * @return Times this listener has been called
      */
     public int getCount() {
-        return count;
+        return (int) histogram.getCount();
     }
 
     /**
@@ -67,7 +133,39 @@ public class TimedRegisteredListener extends RegisteredListener {
      * @return Total time for all calls of this listener
      */
     public long getTotalTime() {
-        return totalTime;
+        return histogram.getTotal();
+    }
+
+    /**
+     * Gets the longest time a single call to this listener has taken
+     *
+     * @return Longest call time in nanoseconds
+     */
+    public long getMaxTime() {
+        return histogram.getMax();
+    }
+
+    /**
+     * Estimates the time within which the given fraction of calls to this
+     * listener completed
+     *
+     * @param percentile Percentile between 0 and 100, such as 99
+     * @return Estimated call time in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        return histogram.getPercentile(percentile / 100);
+    }
+
+    /**
+     * Gets the most time synchronous calls to this listener have taken
+     * within a single server tick
+     *
+     * @return Worst time per tick in nanoseconds, or 0 if the server does
+     *     not report ticks
+     * @see #isTickTracked()
+     */
+    public long getWorstTickTime() {
+        return worstTickTime;
     }
 
     /**
@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -12,7 +11,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -25,16 +31,20 @@ import org.bukkit.Warning.WarningState;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.event.Event;
-import org.bukkit.event.EventException;
+import org.bukkit.event.EventFilter;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.plugin.AuthorNagException;
+import org.bukkit.plugin.CachingPluginLoader;
 import org.bukkit.plugin.EventExecutor;
 import org.bukkit.plugin.InvalidDescriptionException;
 import org.bukkit.plugin.InvalidPluginException;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginClassProfile;
+import org.bukkit.plugin.PluginDescriptionCache;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.PluginLoader;
 import org.bukkit.plugin.RegisteredListener;
@@ -45,11 +55,19 @@ import org.yaml.snakeyaml.error.YAMLException;
 /**
  * Represents a Java plugin loader, allowing plugins in the form of .jar
  */
-public final class JavaPluginLoader implements PluginLoader {
+public final class JavaPluginLoader implements CachingPluginLoader {
+    private static final int MAX_MISSING_CLASSES = 16384;
     final Server server;
     private final Pattern[] fileFilters = new Pattern[] { Pattern.compile("\\.jar$"), };
-    private final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
     private final List<PluginClassLoader> loaders = new CopyOnWriteArrayList<PluginClassLoader>();
+    private final Map<String, List<PluginClassLoader>> packages = new ConcurrentHashMap<String, List<PluginClassLoader>>();
+    private final List<PluginClassLoader> unindexedLoaders = new CopyOnWriteArrayList<PluginClassLoader>();
+    private final Set<String> missingClasses = ConcurrentHashMap.newKeySet();
+    private final AtomicLong packagesVersion = new AtomicLong();
+    private ThreadPoolExecutor preloadExecutor;
+    private volatile PluginDescriptionCache descriptionCache;
+    private volatile PluginClassProfile classProfile;
 
     /**
      * This class was not meant to be constructed explicitly
@@ -71,7 +89,8 @@ public final class JavaPluginLoader implements PluginLoader {
 
         final PluginDescriptionFile description;
         try {
-            description = getPluginDescription(file);
+            PluginDescriptionCache cache = descriptionCache;
+            description = cache == null ? getPluginDescription(file) : cache.getDescription(file, this);
         } catch (InvalidDescriptionException ex) {
             throw new InvalidPluginException(ex);
         }
@@ -124,20 +143,60 @@ public final class JavaPluginLoader implements PluginLoader {
 
         server.getUnsafe().checkSupported(description);
 
+        PluginClassProfile profile = classProfile;
+        String hash = null;
+        if (profile != null) {
+            try {
+                hash = PluginClassProfile.hash(file);
+            } catch (IOException ex) {
+                server.getLogger().log(Level.WARNING, "Could not hash " + file + " for its class profile", ex);
+            }
+        }
+
         final PluginClassLoader loader;
         try {
-            loader = new PluginClassLoader(this, getClass().getClassLoader(), description, dataFolder, file);
+            loader = new PluginClassLoader(this, getClass().getClassLoader(), description, dataFolder, file, hash);
         } catch (InvalidPluginException ex) {
             throw ex;
         } catch (Throwable ex) {
             throw new InvalidPluginException(ex);
         }
 
-        loaders.add(loader);
+        addLoader(loader);
+
+        if (hash != null) {
+            List<String> classes = profile.getClasses(description.getName(), hash);
+            if (classes != null) {
+                loader.preload(classes, getPreloadExecutor());
+            }
+        }
 
         return loader.plugin;
     }
 
+    public void setDescriptionCache(PluginDescriptionCache cache) {
+        this.descriptionCache = cache;
+    }
+
+    public void setClassProfile(PluginClassProfile profile) {
+        this.classProfile = profile;
+    }
+
+    private synchronized Executor getPreloadExecutor() {
+        if (preloadExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+            preloadExecutor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                Thread thread = new Thread(r, "Class Preloader #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Only needed while plugins start
+            preloadExecutor.allowCoreThreadTimeOut(true);
+        }
+        return preloadExecutor;
+    }
+
     public PluginDescriptionFile getPluginDescription(File file) throws InvalidDescriptionException {
         Validate.notNull(file, "File cannot be null");
 
@@ -185,23 +244,91 @@ public final class JavaPluginLoader implements PluginLoader {
 
         if (cachedClass != null) {
             return cachedClass;
-        } else {
-            for (PluginClassLoader loader : loaders) {
-                try {
-                    cachedClass = loader.findClass(name, false);
-                } catch (ClassNotFoundException cnfe) {}
-                if (cachedClass != null) {
-                    return cachedClass;
-                }
+        }
+        if (missingClasses.contains(name)) {
+            return null;
+        }
+
+        // Only the loaders whose jars have classes in the package can define
+        // it, along with those whose Class-Path could not be indexed
+        long version = packagesVersion.get();
+        List<PluginClassLoader> candidates = packages.get(getPackageName(name));
+        if (candidates != null) {
+            cachedClass = findClass(candidates, name);
+        }
+        if (cachedClass == null && !unindexedLoaders.isEmpty()) {
+            cachedClass = findClass(unindexedLoaders, name);
+        }
+        if (cachedClass != null) {
+            return cachedClass;
+        }
+
+        if (missingClasses.size() < MAX_MISSING_CLASSES) {
+            missingClasses.add(name);
+            // A loader added during the lookup may have the class
+            if (packagesVersion.get() != version) {
+                missingClasses.remove(name);
             }
         }
         return null;
     }
 
-    void setClass(final String name, final Class<?> clazz) {
-        if (!classes.containsKey(name)) {
-            classes.put(name, clazz);
+    private static Class<?> findClass(List<PluginClassLoader> loaders, String name) {
+        for (PluginClassLoader loader : loaders) {
+            try {
+                Class<?> found = loader.findClass(name, false);
+                if (found != null) {
+                    return found;
+                }
+            } catch (ClassNotFoundException cnfe) {}
+        }
+        return null;
+    }
+
+    private void addLoader(PluginClassLoader loader) {
+        loaders.add(loader);
+
+        final Set<String> added = loader.getPackageNames();
+        if (added == null) {
+            unindexedLoaders.add(loader);
+            packagesVersion.incrementAndGet();
+            missingClasses.clear();
+            return;
+        }
+        for (String packageName : added) {
+            packages.computeIfAbsent(packageName, key -> new CopyOnWriteArrayList<PluginClassLoader>()).add(loader);
+        }
+        packagesVersion.incrementAndGet();
+        missingClasses.removeIf(name -> added.contains(getPackageName(name)));
+    }
 
+    private void removeLoader(PluginClassLoader loader) {
+        loaders.remove(loader);
+
+        Set<String> removed = loader.getPackageNames();
+        if (removed == null) {
+            unindexedLoaders.remove(loader);
+            return;
+        }
+        for (String packageName : removed) {
+            List<PluginClassLoader> list = packages.get(packageName);
+            if (list != null) {
+                list.remove(loader);
+            }
+        }
+    }
+
+    static String getPackageName(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot == -1 ? "" : className.substring(0, dot);
+    }
+
+    boolean hasClass(String name) {
+        return classes.containsKey(name);
+    }
+
+    void setClass(final String name, final Class<?> clazz) {
+        if (classes.putIfAbsent(name, clazz) == null) {
             if (ConfigurationSerializable.class.isAssignableFrom(clazz)) {
                 Class<? extends ConfigurationSerializable> serializable = clazz.asSubclass(ConfigurationSerializable.class);
                 ConfigurationSerialization.registerClass(serializable);
@@ -259,6 +386,15 @@ public final class JavaPluginLoader implements PluginLoader {
                 continue;
             }
             final Class<? extends Event> eventClass = checkClass.asSubclass(Event.class);
+            final EventFilter filter = EventFilter.of(eh);
+            if (filter != null && !filter.supports(eventClass)) {
+                plugin.getLogger().severe(plugin.getDescription().getFullName() + " attempted to register an EventHandler with filters that " + eventClass.getName() + " does not support: \"" + method.toGenericString() + "\" in " + listener.getClass());
+                continue;
+            }
+            if (eh.asyncObserver() && eh.priority() != EventPriority.MONITOR) {
+                plugin.getLogger().severe(plugin.getDescription().getFullName() + " attempted to register an asynchronous observer with priority " + eh.priority() + " instead of MONITOR \"" + method.toGenericString() + "\" in " + listener.getClass());
+                continue;
+            }
             method.setAccessible(true);
             Set<RegisteredListener> eventSet = ret.get(eventClass);
             if (eventSet == null) {
@@ -289,24 +425,11 @@ public final class JavaPluginLoader implements PluginLoader {
                 }
             }
 
-            EventExecutor executor = new EventExecutor() {
-                public void execute(Listener listener, Event event) throws EventException {
-                    try {
-                        if (!eventClass.isAssignableFrom(event.getClass())) {
-                            return;
-                        }
-                        method.invoke(listener, event);
-                    } catch (InvocationTargetException ex) {
-                        throw new EventException(ex.getCause());
-                    } catch (Throwable t) {
-                        throw new EventException(t);
-                    }
-                }
-            };
+            EventExecutor executor = EventExecutor.create(method, eventClass);
             if (useTimings) {
-                eventSet.add(new TimedRegisteredListener(listener, executor, eh.priority(), plugin, eh.ignoreCancelled()));
+                eventSet.add(new TimedRegisteredListener(listener, executor, eh.priority(), plugin, eh.ignoreCancelled(), eh.batchable(), filter, eh.asyncObserver()));
             } else {
-                eventSet.add(new RegisteredListener(listener, executor, eh.priority(), plugin, eh.ignoreCancelled()));
+                eventSet.add(new RegisteredListener(listener, executor, eh.priority(), plugin, eh.ignoreCancelled(), eh.batchable(), filter, eh.asyncObserver()));
             }
         }
         return ret;
@@ -323,7 +446,7 @@ public final class JavaPluginLoader implements PluginLoader {
             PluginClassLoader pluginLoader = (PluginClassLoader) jPlugin.getClassLoader();
 
             if (!loaders.contains(pluginLoader)) {
-                loaders.add(pluginLoader);
+                addLoader(pluginLoader);
                 server.getLogger().log(Level.WARNING, "Enabled plugin with unregistered PluginClassLoader " + plugin.getDescription().getFullName());
             }
 
@@ -333,6 +456,24 @@ public final class JavaPluginLoader implements PluginLoader {
                 server.getLogger().log(Level.SEVERE, "Error occurred while enabling " + plugin.getDescription().getFullName() + " (Is it up to date?)", ex);
             }
 
+            PluginClassProfile profile = classProfile;
+            if (pluginLoader.isRecording()) {
+                List<String> classes = pluginLoader.stopRecording();
+                // A plugin that failed to enable may not have loaded everything
+                String hash = pluginLoader.getProfileHash();
+                if (profile != null && hash != null && jPlugin.isEnabled()) {
+                    profile.setClasses(plugin.getDescription().getName(), hash, classes);
+                }
+            }
+            if (profile != null && pluginLoader.markReported()) {
+                plugin.getLogger().info(String.format("Defined %d classes in %.1f ms on first use and %d in %.1f ms by preloading",
+                    pluginLoader.getDefinedCount(),
+                    pluginLoader.getDefinedTime() / 1e6,
+                    pluginLoader.getPreloadedCount(),
+                    pluginLoader.getPreloadedTime() / 1e6
+                ));
+            }
+
             // Perhaps abort here, rather than continue going, but as it stands,
             // an abort is not possible the way it's currently written
             server.getPluginManager().callEvent(new PluginEnableEvent(plugin));
@@ -359,7 +500,7 @@ public final class JavaPluginLoader implements PluginLoader {
 
             if (cloader instanceof PluginClassLoader) {
                 PluginClassLoader loader = (PluginClassLoader) cloader;
-                loaders.remove(loader);
+                removeLoader(loader);
 
                 Set<String> names = loader.getClasses();
 
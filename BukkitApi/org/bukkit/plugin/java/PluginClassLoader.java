@@ -5,14 +5,26 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.CodeSigner;
 import java.security.CodeSource;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.jar.JarEntry;
+import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -25,7 +37,17 @@ import org.bukkit.plugin.PluginDescriptionFile;
  */
 final class PluginClassLoader extends URLClassLoader {
     private final JavaPluginLoader loader;
-    private final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+    private final Set<String> packages;
+    private final Queue<String> recorded = new ConcurrentLinkedQueue<String>();
+    private volatile boolean recording;
+    private volatile Thread preloader;
+    private final String profileHash;
+    private boolean reported;
+    private final AtomicInteger definedCount = new AtomicInteger();
+    private final LongAdder definedTime = new LongAdder();
+    private final AtomicInteger preloadedCount = new AtomicInteger();
+    private final LongAdder preloadedTime = new LongAdder();
     private final PluginDescriptionFile description;
     private final File dataFolder;
     private final File file;
@@ -36,17 +58,25 @@ final class PluginClassLoader extends URLClassLoader {
     private JavaPlugin pluginInit;
     private IllegalStateException pluginState;
 
-    PluginClassLoader(final JavaPluginLoader loader, final ClassLoader parent, final PluginDescriptionFile description, final File dataFolder, final File file) throws IOException, InvalidPluginException, MalformedURLException {
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    PluginClassLoader(final JavaPluginLoader loader, final ClassLoader parent, final PluginDescriptionFile description, final File dataFolder, final File file, final String profileHash) throws IOException, InvalidPluginException, MalformedURLException {
         super(new URL[] {file.toURI().toURL()}, parent);
         Validate.notNull(loader, "Loader cannot be null");
 
         this.loader = loader;
+        this.profileHash = profileHash;
+        // Classes are only recorded for a class profile
+        this.recording = profileHash != null;
         this.description = description;
         this.dataFolder = dataFolder;
         this.file = file;
         this.jar = new JarFile(file);
         this.manifest = jar.getManifest();
         this.url = file.toURI().toURL();
+        this.packages = indexPackages(jar, manifest, url);
 
         try {
             Class<?> jarClass;
@@ -71,6 +101,60 @@ final class PluginClassLoader extends URLClassLoader {
         }
     }
 
+    /**
+     * Indexes the packages of the plugin jar and of the jars on its manifest
+     * Class-Path, or returns null if a Class-Path entry cannot be indexed and
+     * any package may be found through this loader.
+     */
+    private static Set<String> indexPackages(JarFile jar, Manifest manifest, URL url) {
+        Set<String> packages = new HashSet<String>();
+        addPackages(jar, packages);
+
+        String classPath = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+        if (classPath != null) {
+            for (String element : classPath.trim().split("\\s+")) {
+                if (element.isEmpty()) {
+                    continue;
+                }
+                File library;
+                try {
+                    URL libraryUrl = new URL(url, element);
+                    if (!"file".equals(libraryUrl.getProtocol())) {
+                        return null;
+                    }
+                    library = new File(libraryUrl.toURI());
+                } catch (MalformedURLException ex) {
+                    continue;
+                } catch (URISyntaxException ex) {
+                    return null;
+                } catch (IllegalArgumentException ex) {
+                    return null;
+                }
+
+                if (library.isDirectory()) {
+                    return null;
+                } else if (library.isFile()) {
+                    try (JarFile libraryJar = new JarFile(library)) {
+                        addPackages(libraryJar, packages);
+                    } catch (IOException ex) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(packages);
+    }
+
+    private static void addPackages(JarFile jar, Set<String> packages) {
+        for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+            String path = entries.nextElement().getName();
+            if (path.endsWith(".class") && !path.startsWith("META-INF/")) {
+                int slash = path.lastIndexOf('/');
+                packages.add(slash == -1 ? "" : path.substring(0, slash).replace('/', '.'));
+            }
+        }
+    }
+
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
         return findClass(name, true);
@@ -88,10 +172,15 @@ final class PluginClassLoader extends URLClassLoader {
             }
 
             if (result == null) {
+                if (packages != null && !packages.contains(JavaPluginLoader.getPackageName(name))) {
+                    throw new ClassNotFoundException(name);
+                }
+
                 String path = name.replace('.', '/').concat(".class");
                 JarEntry entry = jar.getJarEntry(path);
 
                 if (entry != null) {
+                    long start = System.nanoTime();
                     byte[] classBytes;
 
                     try (InputStream is = jar.getInputStream(entry)) {
@@ -123,7 +212,17 @@ final class PluginClassLoader extends URLClassLoader {
                     CodeSigner[] signers = entry.getCodeSigners();
                     CodeSource source = new CodeSource(url, signers);
 
-                    result = defineClass(name, classBytes, 0, classBytes.length, source);
+                    try {
+                        result = defineClass(name, classBytes, 0, classBytes.length, source);
+                        defined(name, System.nanoTime() - start);
+                    } catch (LinkageError ex) {
+                        // Another thread defined it first through a lookup
+                        // from a different plugin
+                        result = findLoadedClass(name);
+                        if (result == null) {
+                            throw ex;
+                        }
+                    }
                 }
 
                 if (result == null) {
@@ -135,12 +234,134 @@ final class PluginClassLoader extends URLClassLoader {
                 }
             }
 
-            classes.put(name, result);
+            Class<?> previous = classes.putIfAbsent(name, result);
+            if (previous != null) {
+                result = previous;
+            }
         }
 
         return result;
     }
 
+    private void defined(String name, long time) {
+        if (recording) {
+            recorded.add(name);
+        }
+        if (Thread.currentThread() == preloader) {
+            preloadedCount.incrementAndGet();
+            preloadedTime.add(time);
+        } else {
+            definedCount.incrementAndGet();
+            definedTime.add(time);
+        }
+    }
+
+    /**
+     * Loads the given classes without initializing them on a background
+     * thread, and stops recording the classes this loader defines. Only
+     * classes in the indexed packages of this loader that no plugin has
+     * defined yet are loaded, and only from this loader, so which plugin's
+     * copy of a shaded class is used still follows the load order.
+     *
+     * @param names Names of the classes in the order they were recorded
+     * @param executor Executor to load the classes on
+     */
+    void preload(final List<String> names, Executor executor) {
+        recording = false;
+        recorded.clear();
+        executor.execute(() -> {
+            preloader = Thread.currentThread();
+            try {
+                for (String name : names) {
+                    if (packages == null || !packages.contains(JavaPluginLoader.getPackageName(name)) || loader.hasClass(name)) {
+                        continue;
+                    }
+                    try {
+                        synchronized (getClassLoadingLock(name)) {
+                            if (findLoadedClass(name) == null) {
+                                findClass(name, false);
+                            }
+                        }
+                    } catch (Throwable ex) {
+                        // Loaded again, and the error reported, if the plugin
+                        // still uses the class
+                    }
+                }
+            } finally {
+                preloader = null;
+            }
+        });
+    }
+
+    /**
+     * @return The hash of the plugin file the class profile was checked
+     *     against when the plugin was loaded, or null if it was not checked
+     */
+    String getProfileHash() {
+        return profileHash;
+    }
+
+    /**
+     * @return true the first time this is called, so the time spent
+     *     defining classes is reported once per load
+     */
+    boolean markReported() {
+        if (reported) {
+            return false;
+        }
+        reported = true;
+        return true;
+    }
+
+    /**
+     * @return true if this loader still records the classes it defines
+     */
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Stops recording the classes this loader defines
+     *
+     * @return The classes defined so far, in the order they were defined
+     */
+    List<String> stopRecording() {
+        recording = false;
+        List<String> names = new ArrayList<String>(recorded);
+        recorded.clear();
+        return names;
+    }
+
+    /**
+     * @return The number of classes defined when they were first used
+     */
+    int getDefinedCount() {
+        return definedCount.get();
+    }
+
+    /**
+     * @return The nanoseconds spent reading and defining classes when they
+     *     were first used
+     */
+    long getDefinedTime() {
+        return definedTime.sum();
+    }
+
+    /**
+     * @return The number of classes defined ahead of time by preloading
+     */
+    int getPreloadedCount() {
+        return preloadedCount.get();
+    }
+
+    /**
+     * @return The nanoseconds spent reading and defining classes on the
+     *     preloading thread
+     */
+    long getPreloadedTime() {
+        return preloadedTime.sum();
+    }
+
     @Override
     public void close() throws IOException {
         try {
@@ -154,6 +375,15 @@ final class PluginClassLoader extends URLClassLoader {
         return classes.keySet();
     }
 
+    /**
+     * @return The packages the jar of this loader and the jars on its
+     *     Class-Path have classes in, or null if they could not all be
+     *     indexed
+     */
+    Set<String> getPackageNames() {
+        return packages;
+    }
+
     synchronized void initialize(JavaPlugin javaPlugin) {
         Validate.notNull(javaPlugin, "Initializing plugin cannot be null");
         Validate.isTrue(javaPlugin.getClass().getClassLoader() == this, "Cannot initialize plugin outside of this class loader");